@@ -0,0 +1,51 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.dto.AuthResponse;
+import com.mscs632.trezello.dto.LoginRequest;
+import com.mscs632.trezello.service.AuthService;
+import com.mscs632.trezello.service.PasswordHasher;
+import com.mscs632.trezello.store.JsonUserStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+    @Param({"100", "10000"})
+    public int users;
+
+    @Param({"10"})
+    public int bcryptStrength;
+
+    private Path dir;
+    private PasswordHasher hasher;
+    private AuthService auth;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(0, users, bcryptStrength);
+        hasher = new PasswordHasher(new SimpleMeterRegistry(), bcryptStrength, 0, 1024, 1);
+        auth = new AuthService(new JsonUserStore(BenchData.codec(), dir, new SimpleMeterRegistry()), hasher, List.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        hasher.destroy();
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public AuthResponse login() {
+        String username = "user" + ThreadLocalRandom.current().nextInt(users);
+        return auth.login(new LoginRequest(username, BenchData.PASSWORD));
+    }
+}
@@ -0,0 +1,89 @@
+package com.mscs632.trezello.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.User;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.JsonStoreConfig;
+import com.mscs632.trezello.store.StorageCodec;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Deterministic data sets written to a temp data dir, shaped like a real board. */
+final class BenchData {
+    static final int ASSIGNEES = 100;
+    static final int CATEGORIES = 10;
+    static final String PASSWORD = "Bench123!";
+
+    private BenchData() {}
+
+    static ObjectMapper objectMapper() {
+        return new JsonStoreConfig().objectMapper();
+    }
+
+    static StorageCodec codec() {
+        return StorageCodec.of("json");
+    }
+
+    static String userId(int i) { return "user-" + i; }
+
+    static String taskId(int i) { return "task-" + i; }
+
+    static List<Task> tasks(int n) {
+        List<Task> all = new ArrayList<>(n);
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < n; i++) {
+            Task t = new Task();
+            t.setId(taskId(i));
+            t.setTitle("Task " + i);
+            t.setDescription("Description of task " + i + " with a few more words to look realistic");
+            t.setStatus(TaskStatus.values()[i % TaskStatus.values().length]);
+            t.setCategory("category-" + (i % CATEGORIES));
+            t.setAssigneeId(userId(i % ASSIGNEES));
+            t.setVersion(1);
+            String ts = base.plusSeconds(i).toString();
+            t.setCreatedAt(ts);
+            t.setUpdatedAt(ts);
+            all.add(t);
+        }
+        return all;
+    }
+
+    /** Users sharing one BCrypt hash of {@link #PASSWORD} at the given strength. */
+    static List<User> users(int n, int bcryptStrength) {
+        String hash = new BCryptPasswordEncoder(bcryptStrength).encode(PASSWORD);
+        List<User> all = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            User u = new User();
+            u.setId(userId(i));
+            u.setUsername("User" + i);
+            u.setRole(String.valueOf(i == 0 ? UserRole.ADMIN : UserRole.USER));
+            u.setPasswordHash(hash);
+            all.add(u);
+        }
+        return all;
+    }
+
+    static Path dataDir(int tasks, int users, int bcryptStrength) throws IOException {
+        ObjectMapper om = objectMapper();
+        Path dir = Files.createTempDirectory("trezello-bench");
+        Files.write(dir.resolve("tasks.json"), om.writeValueAsBytes(tasks(tasks)));
+        Files.write(dir.resolve("users.json"), om.writeValueAsBytes(users(users, bcryptStrength)));
+        return dir;
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
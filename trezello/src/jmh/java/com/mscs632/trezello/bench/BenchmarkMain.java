@@ -0,0 +1,37 @@
+package com.mscs632.trezello.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once per thread count in {@code -Djmh.threads}
+ * and writes every result into one JSON file ({@code -Djmh.result}) so runs
+ * from different releases can be diffed. Arguments are regular JMH options;
+ * a single argument is split on whitespace so Maven can pass them in one
+ * property.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        String[] jmhArgs = args.length == 1 ? args[0].trim().split("\\s+") : args;
+        CommandLineOptions cli = new CommandLineOptions(jmhArgs);
+        String result = System.getProperty("jmh.result", "target/jmh-result.json");
+
+        List<RunResult> all = new ArrayList<>();
+        for (String t : System.getProperty("jmh.threads", "1").split(",")) {
+            var opts = new OptionsBuilder().parent(cli).threads(Integer.parseInt(t.trim())).build();
+            all.addAll(new Runner(opts).run());
+        }
+        try (PrintStream out = new PrintStream(result)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(all);
+        }
+        System.out.println("Wrote " + all.size() + " results to " + result);
+    }
+}
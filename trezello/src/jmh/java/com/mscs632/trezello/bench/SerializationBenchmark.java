@@ -0,0 +1,42 @@
+package com.mscs632.trezello.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Jackson round trips of task lists with the mapper the app uses for HTTP and files. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private ObjectMapper om;
+    private List<Task> tasks;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        om = BenchData.objectMapper();
+        tasks = BenchData.tasks(size);
+        json = om.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return om.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public List<Task> deserialize() throws Exception {
+        return om.readValue(json, new TypeReference<>(){});
+    }
+}
@@ -0,0 +1,50 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.store.StorageCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving the task file with each storage codec, against the
+ * indented HTTP mapper the stores used before ({@code pretty}). The encoded
+ * size of each is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class StorageCodecBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"pretty", "json", "smile"})
+    public String codec;
+
+    private List<Task> tasks;
+    private byte[] encoded;
+    private StorageCodec storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tasks = BenchData.tasks(size);
+        storage = codec.equals("pretty") ? BenchData.codec() : StorageCodec.of(codec);
+        encoded = save();
+        System.out.printf("%n%s, %d tasks: %d bytes%n", codec, size, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] save() throws IOException {
+        return codec.equals("pretty") ? BenchData.objectMapper().writeValueAsBytes(tasks) : storage.write(tasks);
+    }
+
+    @Benchmark
+    public List<Task> load() throws IOException {
+        return storage.readTasks(encoded);
+    }
+}
@@ -0,0 +1,107 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.TaskPersistence;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Heap retained by {@code size} loaded tasks: plain {@link Task} objects in an
+ * id map with the store's three secondary indexes (how the in-memory store
+ * held them before) against the in-memory store itself. Reported as the
+ * {@code retainedBytes} and {@code bytesPerTask} secondary results of the one
+ * measured load; run with {@code -Djmh.threads=1}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class TaskFootprintBenchmark {
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"task-objects", "memory-store"})
+    public String layout;
+
+    private Object held;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes;
+        public long bytesPerTask;
+    }
+
+    @Setup(Level.Iteration)
+    public void release() {
+        if (held instanceof AutoCloseable c) {
+            try { c.close(); } catch (Exception ignored) {}
+        }
+        held = null;
+    }
+
+    @Benchmark
+    public Object load(Footprint footprint) {
+        long before = usedAfterGc();
+        List<Task> loaded = BenchData.tasks(size);
+        held = switch (layout) {
+            case "task-objects" -> {
+                Map<String, Task> byId = new ConcurrentHashMap<>();
+                Map<Object, Set<String>> byAssignee = new ConcurrentHashMap<>();
+                Map<Object, Set<String>> byStatus = new ConcurrentHashMap<>();
+                Map<Object, Set<String>> byCategory = new ConcurrentHashMap<>();
+                for (Task t : loaded) {
+                    byId.put(t.getId(), t);
+                    byAssignee.computeIfAbsent(t.getAssigneeId(), k -> ConcurrentHashMap.newKeySet()).add(t.getId());
+                    byStatus.computeIfAbsent(t.getStatus(), k -> ConcurrentHashMap.newKeySet()).add(t.getId());
+                    byCategory.computeIfAbsent(t.getCategory(), k -> ConcurrentHashMap.newKeySet()).add(t.getId());
+                }
+                yield List.of(byId, byAssignee, byStatus, byCategory);
+            }
+            case "memory-store" -> new InMemoryTaskStore(new Loaded(loaded), InMemoryTaskStore.Durability.SYNC, 0, 0);
+            default -> throw new IllegalArgumentException(layout);
+        };
+        loaded = null;
+        footprint.retainedBytes = usedAfterGc() - before;
+        footprint.bytesPerTask = footprint.retainedBytes / size;
+        return held;
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /** Hands the store its tasks once and forgets them, so only the store's copy stays reachable. */
+    private static final class Loaded implements TaskPersistence {
+        private List<Task> tasks;
+
+        Loaded(List<Task> tasks) { this.tasks = tasks; }
+
+        @Override public List<Task> load() {
+            List<Task> all = tasks;
+            tasks = null;
+            return all;
+        }
+
+        @Override public void upserted(Task t) {}
+
+        @Override public void deleted(String id) {}
+
+        @Override public void sync(Supplier<List<Task>> contents) {}
+
+        @Override public void close() {}
+    }
+}
@@ -0,0 +1,53 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.service.TaskSearchIndex;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.SnapshotTaskPersistence;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** GET /tasks/search cost: a word every task has, a rare word, and a short prefix. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TaskSearchBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"realistic", "task 4242", "desc 12"})
+    public String q;
+
+    @Param({"ADMIN", "USER"})
+    public UserRole role;
+
+    private Path dir;
+    private InMemoryTaskStore store;
+    private TaskSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(size, 1, 4);
+        store = new InMemoryTaskStore(new SnapshotTaskPersistence(BenchData.codec(), dir.resolve("tasks.json")),
+                InMemoryTaskStore.Durability.ASYNC, 1000, 0);
+        index = new TaskSearchIndex(store);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Task> search() {
+        return index.search(q, 20, BenchData.userId(42), role);
+    }
+}
@@ -0,0 +1,65 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.service.TaskService;
+import com.mscs632.trezello.store.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** TaskService.list for every combination of status, category and assignee filters. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"json", "memory"})
+    public String store;
+
+    @Param({"none", "status", "category", "assignee", "status+category",
+            "status+assignee", "category+assignee", "status+category+assignee"})
+    public String filter;
+
+    @Param({"ADMIN", "USER"})
+    public UserRole role;
+
+    private Path dir;
+    private TaskStore tasks;
+    private TaskService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(size, 1, 4);
+        tasks = store.equals("json")
+                ? new JsonTaskStore(BenchData.codec(), dir, new SimpleMeterRegistry())
+                : new InMemoryTaskStore(new SnapshotTaskPersistence(BenchData.codec(), dir.resolve("tasks.json")),
+                        InMemoryTaskStore.Durability.ASYNC, 1000, 0);
+        service = new TaskService(tasks, List.of(), new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (tasks instanceof AutoCloseable c) c.close();
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Task> list() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        String actor = BenchData.userId(r.nextInt(BenchData.ASSIGNEES));
+        String status = filter.contains("status") ? "PENDING" : null;
+        String category = filter.contains("category") ? "category-" + r.nextInt(BenchData.CATEGORIES) : null;
+        String assignee = filter.contains("assignee") ? actor : null;
+        return service.list(status, category, assignee, actor, role);
+    }
+}
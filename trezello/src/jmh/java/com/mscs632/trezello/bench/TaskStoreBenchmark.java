@@ -0,0 +1,86 @@
+package com.mscs632.trezello.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.store.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TaskStoreBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"json", "memory-snapshot", "memory-log"})
+    public String store;
+
+    @Param({"json", "smile"})
+    public String codec;
+
+    private Path dir;
+    private TaskStore tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(size, 1, 4);
+        ObjectMapper om = BenchData.objectMapper();
+        StorageCodec c = StorageCodec.of(codec);
+        c.migrateTasks(dir.resolve("tasks.json"));
+        Path file = dir.resolve("tasks.json");
+        tasks = switch (store) {
+            case "json" -> new JsonTaskStore(c, dir, new SimpleMeterRegistry());
+            case "memory-snapshot" -> new InMemoryTaskStore(new SnapshotTaskPersistence(c, file),
+                    InMemoryTaskStore.Durability.ASYNC, 1000, 0);
+            case "memory-log" -> new InMemoryTaskStore(new LogTaskPersistence(om, c, file, dir.resolve("wal")),
+                    InMemoryTaskStore.Durability.ASYNC, 1000, 60_000);
+            default -> throw new IllegalArgumentException(store);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (tasks instanceof AutoCloseable c) c.close();
+        BenchData.delete(dir);
+    }
+
+    private String randomId() {
+        return BenchData.taskId(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return tasks.findAll();
+    }
+
+    @Benchmark
+    public Optional<Task> findById() {
+        return tasks.findById(randomId());
+    }
+
+    @Benchmark
+    public Task upsert() {
+        Task t = tasks.findById(randomId()).orElseThrow();
+        t.setTitle("updated " + System.nanoTime());
+        return tasks.upsert(t);
+    }
+
+    /** Deletes a task and puts it back so the data set keeps its size. */
+    @Benchmark
+    public Task deleteById() {
+        Task t = tasks.findById(randomId()).orElse(null);
+        if (t == null) return null;
+        tasks.deleteById(t.getId());
+        return tasks.upsert(t);
+    }
+}
@@ -0,0 +1,46 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.User;
+import com.mscs632.trezello.store.JsonUserStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UserStoreBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int users;
+
+    private Path dir;
+    private JsonUserStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(0, users, 4);
+        store = new JsonUserStore(BenchData.codec(), dir, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return store.findById(BenchData.userId(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    @Benchmark
+    public Optional<User> findByUsername() {
+        return store.findByUsername("user" + ThreadLocalRandom.current().nextInt(users));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mscs632.trezello.bench;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.store.JsonTaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request-shaped workload against the JSON store (read by id, some writes,
+ * optional downstream wait) handed to Tomcat's default 200-thread pool or to
+ * one virtual thread per request. Each benchmark thread is a client, so run
+ * with more clients than the pool, e.g. {@code -Djmh.threads=400}; the
+ * SampleTime results carry p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"0", "5"})
+    public int waitMillis;
+
+    @Param({"10"})
+    public int writePercent;
+
+    private Path dir;
+    private JsonTaskStore store;
+    private ExecutorService pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchData.dataDir(size, 1, 4);
+        store = new JsonTaskStore(BenchData.codec(), dir, new SimpleMeterRegistry());
+        pool = executor.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        BenchData.delete(dir);
+    }
+
+    @Benchmark
+    public Object request() throws Exception {
+        return pool.submit(this::handle).get();
+    }
+
+    private Object handle() throws InterruptedException {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        if (waitMillis > 0) Thread.sleep(waitMillis);
+        String id = BenchData.taskId(r.nextInt(size));
+        if (r.nextInt(100) >= writePercent) return store.findById(id);
+        Task t = store.findById(id).orElseThrow();
+        t.setTitle("updated " + r.nextInt());
+        return store.upsert(t);
+    }
+}
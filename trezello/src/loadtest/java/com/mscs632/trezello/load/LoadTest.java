@@ -0,0 +1,198 @@
+package com.mscs632.trezello.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mscs632.trezello.TrezelloApplication;
+import com.mscs632.trezello.load.Workload.Op;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * HTTP load generator for the REST API. Settings are {@code -Dload.*}
+ * properties (see the {@code loadtest} profile in pom.xml):
+ * <ul>
+ *   <li>{@code baseUrl}: server to load; empty starts the app in this JVM on a
+ *       free port with a temp data dir and {@code appArgs} as extra arguments.
+ *       That app runs without rate limiting, so the run measures the stores
+ *       rather than 429s, unless {@code appArgs} sets
+ *       {@code trezello.rateLimit.enabled}</li>
+ *   <li>{@code users}: accounts signed up before the run</li>
+ *   <li>{@code rate}: requests per second, arriving as a Poisson process
+ *       whether or not earlier requests have finished (open loop); latency
+ *       is measured from each request's scheduled start, so a stalled server
+ *       shows up in the tail instead of silently lowering the send rate.
+ *       0 runs {@code users} closed-loop clients instead</li>
+ *   <li>{@code warmupSeconds}, {@code durationSeconds}: unreported warmup,
+ *       then the measured run</li>
+ *   <li>{@code mix}: relative weights per operation, e.g. {@code list=40,create=20}</li>
+ *   <li>{@code result}: JSON file for the per-operation results</li>
+ * </ul>
+ * 409 and 429 answers are counted on their own, apart from errors.
+ */
+public final class LoadTest {
+    private LoadTest() {}
+
+    /** Latencies and outcomes of one operation over one phase. */
+    private static final class OpStats {
+        final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(5), 3);
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private record Phase(Map<Op, OpStats> stats, long elapsedNanos) {}
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl", "");
+        int users = Integer.getInteger("load.users", 50);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "200"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 60));
+        Map<Op, Integer> mix = parseMix(System.getProperty("load.mix",
+                "signup=1,login=4,users=5,list=40,create=20,update=18,complete=8,delete=4"));
+        Path result = Path.of(System.getProperty("load.result", "target/loadtest-result.json"));
+
+        Path dataDir = null;
+        ConfigurableApplicationContext app = null;
+        try {
+            if (baseUrl.isBlank()) {
+                dataDir = Files.createTempDirectory("trezello-load");
+                List<String> appArgs = new ArrayList<>(List.of("--server.port=0", "--trezello.dataDir=" + dataDir,
+                        "--logging.level.root=WARN"));
+                String extra = System.getProperty("load.appArgs", "");
+                if (!extra.contains("--trezello.rateLimit.enabled=")) appArgs.add("--trezello.rateLimit.enabled=false");
+                if (!extra.isBlank()) appArgs.addAll(List.of(extra.trim().split("\\s+")));
+                app = SpringApplication.run(TrezelloApplication.class, appArgs.toArray(String[]::new));
+                baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+
+            Workload workload = new Workload(baseUrl);
+            workload.setUp(users);
+            System.out.printf("%s: %s, %d users, mix %s%n", baseUrl,
+                    rate > 0 ? "open loop at " + rate + " req/s" : "closed loop", users, mix);
+            if (!warmup.isZero()) run(workload, mix, rate, users, warmup);
+            Phase measured = run(workload, mix, rate, users, duration);
+            report(measured, rate, users, result);
+        } finally {
+            if (app != null) app.close();
+            if (dataDir != null) delete(dataDir);
+        }
+    }
+
+    private static Phase run(Workload workload, Map<Op, Integer> mix, double rate, int users, Duration length)
+            throws InterruptedException {
+        Map<Op, OpStats> stats = new EnumMap<>(Op.class);
+        for (Op op : Op.values()) stats.put(op, new OpStats());
+        Op[] table = weighted(mix);
+
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (rate > 0) {
+                SplittableRandom rnd = new SplittableRandom();
+                for (long next = start; next < end; next += (long) (-Math.log(1 - rnd.nextDouble()) / rate * 1e9)) {
+                    for (long now; (now = System.nanoTime()) < next; ) LockSupport.parkNanos(next - now);
+                    long scheduled = next;
+                    Op op = table[rnd.nextInt(table.length)];
+                    pool.execute(() -> record(stats, workload.run(op), scheduled));
+                }
+            } else {
+                for (int u = 0; u < users; u++) {
+                    pool.execute(() -> {
+                        SplittableRandom rnd = new SplittableRandom();
+                        while (System.nanoTime() < end) {
+                            long sent = System.nanoTime();
+                            record(stats, workload.run(table[rnd.nextInt(table.length)]), sent);
+                        }
+                    });
+                }
+            }
+        } // close() waits for requests still in flight; they count toward this phase
+        return new Phase(stats, System.nanoTime() - start);
+    }
+
+    private static void record(Map<Op, OpStats> stats, Workload.Outcome outcome, long startNanos) {
+        OpStats s = stats.get(outcome.op());
+        s.latency.recordValue(Math.min(System.nanoTime() - startNanos, s.latency.getHighestTrackableValue()));
+        if (outcome.status() == 409) s.conflicts.increment();
+        else if (outcome.status() == 429) s.throttled.increment();
+        else if (outcome.status() < 200 || outcome.status() >= 300) s.errors.increment();
+    }
+
+    private static void report(Phase phase, double rate, int users, Path result) throws IOException {
+        double seconds = phase.elapsedNanos() / 1e9;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        System.out.printf("%n%-9s %8s %9s %9s %9s %9s %9s %8s %8s %8s%n",
+                "op", "count", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "409 %", "429 %", "error %");
+        for (Map.Entry<Op, OpStats> e : phase.stats().entrySet()) {
+            Histogram h = e.getValue().latency;
+            long n = h.getTotalCount();
+            if (n == 0) continue;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("op", e.getKey().name().toLowerCase(Locale.ROOT));
+            row.put("count", n);
+            row.put("throughput", n / seconds);
+            row.put("p50Ms", h.getValueAtPercentile(50) / 1e6);
+            row.put("p95Ms", h.getValueAtPercentile(95) / 1e6);
+            row.put("p99Ms", h.getValueAtPercentile(99) / 1e6);
+            row.put("maxMs", h.getMaxValue() / 1e6);
+            row.put("conflictRate", e.getValue().conflicts.sum() / (double) n);
+            row.put("throttledRate", e.getValue().throttled.sum() / (double) n);
+            row.put("errorRate", e.getValue().errors.sum() / (double) n);
+            rows.add(row);
+            System.out.printf("%-9s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %8.2f %8.2f %8.2f%n", row.get("op"), n, n / seconds,
+                    row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"), row.get("maxMs"),
+                    100 * (double) row.get("conflictRate"), 100 * (double) row.get("throttledRate"),
+                    100 * (double) row.get("errorRate"));
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("mode", rate > 0 ? "open" : "closed");
+        out.put("rate", rate);
+        out.put("users", users);
+        out.put("seconds", seconds);
+        out.put("ops", rows);
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(result.toFile(), out);
+        System.out.println("Wrote " + result);
+    }
+
+    static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> mix = new EnumMap<>(Op.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("load.mix entries look like op=weight: " + part);
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) mix.put(Op.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("load.mix has no operation with a positive weight");
+        return mix;
+    }
+
+    /** One slot per unit of weight, so picking an operation is one random index. */
+    private static Op[] weighted(Map<Op, Integer> mix) {
+        List<Op> table = new ArrayList<>();
+        mix.forEach((op, weight) -> table.addAll(Collections.nCopies(weight, op)));
+        return table.toArray(Op[]::new);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
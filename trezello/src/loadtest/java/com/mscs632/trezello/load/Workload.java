@@ -0,0 +1,215 @@
+package com.mscs632.trezello.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A board shared by many users, driven over HTTP. Users sign up and log in
+ * with passwords, list their tasks with random filters and create, edit and
+ * complete their own tasks using the version they last saw, so two edits of
+ * one task in flight produce a real 409. An admin account deletes tasks.
+ * Versions are refreshed from list responses, like a client reloading after
+ * a conflict.
+ */
+final class Workload {
+    enum Op { SIGNUP, LOGIN, USERS, LIST, CREATE, UPDATE, COMPLETE, DELETE }
+
+    /** The operation that was actually sent (an edit with no known task creates one) and its status, -1 for I/O errors. */
+    record Outcome(Op op, int status) {}
+
+    private static final String PASSWORD = "Load123!";
+    private static final String[] CATEGORIES = {"Work", "Home", "Growth", "Errands", "Health"};
+    private static final String[] STATUSES = {"PENDING", "IN_PROGRESS", "COMPLETED"};
+    private static final int TRACKED_TASKS = 4096;
+
+    private record Account(String id, String username) {}
+
+    private static final class TaskRef {
+        final String id;
+        final Account owner;
+        // -1 after a conflict until a list shows the current version
+        volatile int version;
+        volatile boolean gone;
+
+        TaskRef(String id, Account owner, int version) {
+            this.id = id;
+            this.owner = owner;
+            this.version = version;
+        }
+    }
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final HttpClient http;
+    private final String baseUrl;
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong names = new AtomicLong();
+    private final List<Account> accounts = new CopyOnWriteArrayList<>();
+    private final AtomicReferenceArray<TaskRef> recent = new AtomicReferenceArray<>(TRACKED_TASKS);
+    private final AtomicLong created = new AtomicLong();
+    private final ConcurrentHashMap<String, TaskRef> byId = new ConcurrentHashMap<>();
+    private volatile String adminId;
+
+    Workload(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /** Creates the admin and {@code users} signed-up accounts. */
+    void setUp(int users) {
+        JsonNode admin = body(send("POST", "/users", null, Map.of("username", "load-admin-" + run, "role", "ADMIN")));
+        if (admin == null) throw new IllegalStateException("could not create the admin user at " + baseUrl);
+        adminId = admin.get("id").asText();
+        for (int i = 0; i < users; i++) signup();
+        if (accounts.isEmpty()) throw new IllegalStateException("could not sign up users at " + baseUrl);
+    }
+
+    Outcome run(Op op) {
+        return switch (op) {
+            case SIGNUP -> new Outcome(op, signup());
+            case LOGIN -> new Outcome(op, login());
+            case USERS -> new Outcome(op, status(send("GET", "/users", account().id(), null)));
+            case LIST -> new Outcome(op, list());
+            case CREATE -> new Outcome(op, create());
+            case UPDATE, COMPLETE, DELETE -> edit(op);
+        };
+    }
+
+    private int signup() {
+        String username = "load-" + run + "-" + names.incrementAndGet();
+        HttpResponse<String> res = send("POST", "/auth/signup", null, Map.of("username", username, "password", PASSWORD));
+        JsonNode user = body(res);
+        if (user != null) accounts.add(new Account(user.get("id").asText(), username));
+        return status(res);
+    }
+
+    private int login() {
+        return status(send("POST", "/auth/login", null, Map.of("username", account().username(), "password", PASSWORD)));
+    }
+
+    private int list() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        if (rnd.nextInt(3) == 0) query.add("status=" + STATUSES[rnd.nextInt(STATUSES.length)]);
+        if (rnd.nextInt(3) == 0) query.add("category=" + URLEncoder.encode(category(), StandardCharsets.UTF_8));
+        HttpResponse<String> res = send("GET", "/tasks" + query, account().id(), null);
+        JsonNode tasks = body(res);
+        if (tasks != null) {
+            for (JsonNode t : tasks) {
+                TaskRef ref = byId.get(t.get("id").asText());
+                if (ref != null) ref.version = t.get("version").asInt();
+            }
+        }
+        return status(res);
+    }
+
+    private int create() {
+        Account owner = account();
+        HttpResponse<String> res = send("POST", "/tasks", owner.id(), Map.of(
+                "title", "Load task " + names.incrementAndGet(),
+                "description", "Created by the load test",
+                "category", category(),
+                "assigneeId", owner.id()));
+        JsonNode task = body(res);
+        if (task != null) {
+            TaskRef ref = new TaskRef(task.get("id").asText(), owner, task.get("version").asInt());
+            byId.put(ref.id, ref);
+            TaskRef evicted = recent.getAndSet((int) (created.getAndIncrement() % TRACKED_TASKS), ref);
+            if (evicted != null) byId.remove(evicted.id);
+        }
+        return status(res);
+    }
+
+    private Outcome edit(Op op) {
+        TaskRef ref = pick();
+        if (ref == null) return new Outcome(Op.CREATE, create());
+        int version = ref.version;
+        HttpResponse<String> res = switch (op) {
+            case UPDATE -> send("PUT", "/tasks/" + ref.id, ref.owner.id(), Map.of(
+                    "title", "Edited " + names.incrementAndGet(),
+                    "description", "Updated by the load test",
+                    "category", category(),
+                    "status", "IN_PROGRESS",
+                    "version", version));
+            case COMPLETE -> send("PATCH", "/tasks/" + ref.id + "/complete", ref.owner.id(), Map.of("version", version));
+            default -> send("DELETE", "/tasks/" + ref.id, adminId, null);
+        };
+        int status = status(res);
+        JsonNode task = body(res);
+        if (task != null && task.has("version")) ref.version = task.get("version").asInt();
+        if (status == 409) ref.version = -1;
+        if (status == 404 || (op == Op.DELETE && status == 200)) {
+            ref.gone = true;
+            byId.remove(ref.id);
+        }
+        return new Outcome(op, status);
+    }
+
+    /** A random tracked task that still exists and whose version is known, or null. */
+    private TaskRef pick() {
+        long n = Math.min(created.get(), TRACKED_TASKS);
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < 8 && n > 0; attempt++) {
+            TaskRef ref = recent.get(rnd.nextInt((int) n));
+            if (ref != null && !ref.gone && ref.version > 0) return ref;
+        }
+        return null;
+    }
+
+    private Account account() {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+
+    private static String category() {
+        return CATEGORIES[ThreadLocalRandom.current().nextInt(CATEGORIES.length)];
+    }
+
+    private HttpResponse<String> send(String method, String path, String userId, Object body) {
+        try {
+            HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(om.writeValueAsString(body)));
+            if (body != null) req.header("Content-Type", "application/json");
+            if (userId != null) req.header("X-User-Id", userId);
+            return http.send(req.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static int status(HttpResponse<String> res) {
+        return res == null ? -1 : res.statusCode();
+    }
+
+    /** The parsed body of a 2xx response, else null. */
+    private JsonNode body(HttpResponse<String> res) {
+        if (res == null || res.statusCode() / 100 != 2 || res.body().isEmpty()) return null;
+        try {
+            return om.readTree(res.body());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
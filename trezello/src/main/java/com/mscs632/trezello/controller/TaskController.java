@@ -1,33 +1,215 @@
 package com.mscs632.trezello.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mscs632.trezello.dto.*;
+import com.mscs632.trezello.exception.BadRequestException;
 import com.mscs632.trezello.model.Task;
 import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.TaskQuery;
+import com.mscs632.trezello.service.TaskAggregates;
+import com.mscs632.trezello.service.TaskChangeFeed;
+import com.mscs632.trezello.service.TaskListCache;
+import com.mscs632.trezello.service.TaskSearchIndex;
 import com.mscs632.trezello.service.TaskService;
 import com.mscs632.trezello.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
     private final TaskService service;
     private final UserService userService;
-    public TaskController(TaskService service, UserService userService)
+    private final TaskChangeFeed changes;
+    private final TaskSearchIndex searchIndex;
+    private final TaskAggregates aggregates;
+    private final TaskListCache listCache;
+    private final ObjectMapper om;
+    private final ObjectWriter taskWriter;
+    private final ObjectWriter listWriter;
+    // the change sequence restarts with the process, so tags from a previous run must not match
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    public TaskController(TaskService service, UserService userService, TaskChangeFeed changes,
+                          TaskSearchIndex searchIndex, TaskAggregates aggregates, TaskListCache listCache,
+                          ObjectMapper om)
     { this.service = service;
         this.userService = userService;
+        this.changes = changes;
+        this.searchIndex = searchIndex;
+        this.aggregates = aggregates;
+        this.listCache = listCache;
+        this.om = om;
+        this.taskWriter = om.writerFor(Task.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.listWriter = om.writerFor(om.getTypeFactory().constructCollectionType(List.class, Task.class));
     }
 
     private UserRole role(String r) { return UserRole.valueOf(r.toUpperCase()); }
 
     @GetMapping
-    public List<Task> list(@RequestHeader("X-User-Id") String userId,
-                           @RequestParam(required=false) String status,
-                           @RequestParam(required=false) String category,
-                           @RequestParam(required=false) String assigneeId) {
+    public ResponseEntity<?> list(@RequestHeader("X-User-Id") String userId,
+                                  @RequestParam(required=false) String status,
+                                  @RequestParam(required=false) String category,
+                                  @RequestParam(required=false) String assigneeId,
+                                  @RequestParam(required=false) Integer limit,
+                                  @RequestParam(required=false) String cursor,
+                                  WebRequest request,
+                                  HttpServletResponse response) {
+        UserRole role = userService.resolveRole(userId);
+        if (limit == null && cursor == null && listCache.enabled()) {
+            TaskQuery q = TaskService.effectiveQuery(status, category, assigneeId, userId, role);
+            if (q == null) return ResponseEntity.ok().cacheControl(REVALIDATE).body(List.of());
+            return cachedList(q, () -> service.list(status, category, assigneeId, userId, role), request, response);
+        }
+        // answered from the change sequence alone, before the store or Jackson are involved
+        if (request.checkNotModified(etag(service.changeSeq(), userId, role, status, category, assigneeId, limit, cursor, false)))
+            return null;
+        if (limit == null && cursor == null)
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(service.list(status, category, assigneeId, userId, role));
+
+        TaskPage page = service.page(status, category, assigneeId, userId, role,
+                limit == null ? TaskService.MAX_PAGE_SIZE : limit, cursor);
+        var res = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (page.nextCursor() != null) res.header("X-Next-Cursor", page.nextCursor());
+        return res.body(page.items());
+    }
+
+    /**
+     * The serialized list from {@link TaskListCache}, gzip-encoded when the
+     * client accepts it. The ETag names the cached body itself, plus the
+     * encoding, so a 304 is checked after the (usually cached) lookup.
+     */
+    private ResponseEntity<byte[]> cachedList(TaskQuery q, Supplier<List<Task>> load,
+                                              WebRequest request, HttpServletResponse response) {
+        TaskListCache.Body body = listCache.get(q, service.outsideChangeSeq(), () -> {
+            try { return listWriter.writeValueAsBytes(load.get()); }
+            catch (IOException e) { throw new UncheckedIOException(e); }
+        });
+        boolean gzip = body.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // set before the 304 check so a 304 carries it too
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified("\"" + instance + "-l" + body.generation() + (gzip ? "-gz" : "") + "\""))
+            return null;
+        var res = ResponseEntity.ok().cacheControl(REVALIDATE).contentType(MediaType.APPLICATION_JSON);
+        if (gzip) return res.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        return res.body(body.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            if (!coding[0].trim().equalsIgnoreCase("gzip") && !coding[0].trim().equals("*")) continue;
+            // gzip;q=0 means the opposite
+            return coding.length < 2 || !coding[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    /** Writes matching tasks straight to the response instead of building a list first. */
+    @GetMapping(params = "stream=true")
+    public void stream(@RequestHeader("X-User-Id") String userId,
+                       @RequestParam(required=false) String status,
+                       @RequestParam(required=false) String category,
+                       @RequestParam(required=false) String assigneeId,
+                       WebRequest request,
+                       HttpServletResponse response) throws IOException {
+        UserRole role = userService.resolveRole(userId);
+        if (request.checkNotModified(etag(service.changeSeq(), userId, role, status, category, assigneeId, null, null, true)))
+            return;
+        response.setHeader("Cache-Control", REVALIDATE.getHeaderValue());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator gen = om.createGenerator(response.getOutputStream())) {
+            gen.writeStartArray();
+            service.forEach(status, category, assigneeId, userId, role, t -> {
+                try { taskWriter.writeValue(gen, t); }
+                catch (IOException e) { throw new UncheckedIOException(e); }
+            });
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * The sequence is read before the query runs, so a tag can only be older than the body it labels.
+     * The request is named by 64 bits of a SHA-256 over its parameters, each length-prefixed so no
+     * two requests share the input.
+     */
+    private String etag(long seq, String userId, UserRole role, String status, String category, String assigneeId,
+                        Integer limit, String cursor, boolean stream) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : new Object[]{userId, role, status, category, assigneeId, limit, cursor, stream}) {
+            if (part == null) key.append('-');
+            else key.append(part.toString().length()).append(':').append(part);
+        }
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return "\"" + instance + "-" + seq + "-" + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+    }
+
+    /**
+     * Changes after {@code since}. Without {@code since} only the current
+     * position is returned (with resync set). {@code waitMs} holds the request
+     * open until something changes or the wait runs out.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ChangeFeedResponse> changes(@RequestHeader("X-User-Id") String userId,
+                                                      @RequestParam(required=false) Long since,
+                                                      @RequestParam(defaultValue="0") long waitMs) {
         UserRole role = userService.resolveRole(userId);
-        return service.list(status, category, assigneeId, userId, role);
+        return changes.poll(since == null ? -1 : since, userId, role, waitMs);
+    }
+
+    /** SSE variant; EventSource cannot set headers, so the user id may also come as a parameter. */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changeStream(@RequestHeader(value="X-User-Id", required=false) String userId,
+                                   @RequestParam(value="userId", required=false) String userIdParam,
+                                   @RequestParam(required=false) Long since,
+                                   @RequestHeader(value="Last-Event-ID", required=false) Long lastEventId) {
+        String actor = userId != null ? userId : userIdParam;
+        if (actor == null) throw new BadRequestException("X-User-Id required");
+        UserRole role = userService.resolveRole(actor);
+        long from = lastEventId != null ? lastEventId : since != null ? since : -1;
+        return changes.subscribe(from, actor, role);
+    }
+
+    /** Full-text search over titles and descriptions, best match first, within what {@code list} would show. */
+    @GetMapping("/search")
+    public List<Task> search(@RequestHeader("X-User-Id") String userId,
+                             @RequestParam String q,
+                             @RequestParam(defaultValue="20") int limit) {
+        UserRole role = userService.resolveRole(userId);
+        return searchIndex.search(q, limit, userId, role);
+    }
+
+    /** Counts by status, assignee and category from maintained counters; no task is read. */
+    @GetMapping("/stats")
+    public TaskStatsResponse stats(@RequestHeader("X-User-Id") String userId) {
+        UserRole role = userService.resolveRole(userId);
+        return aggregates.stats(userId, role);
     }
 
     @PostMapping
@@ -37,6 +219,26 @@ public class TaskController {
         return service.create(req, userId, role);
     }
 
+    /** Bulk create; every entry is applied in one store batch with a single durable write. */
+    @PostMapping("/batch")
+    public List<BatchItemResult> createBatch(@RequestHeader("X-User-Id") String userId,
+                                             @RequestBody List<CreateTaskRequest> req) {
+        UserRole role = userService.resolveRole(userId);
+        List<BatchOperation> ops = req.stream()
+                .map(c -> new BatchOperation(BatchOperation.Op.CREATE, null, null,
+                        c.title(), c.description(), c.category(), c.assigneeId(), null))
+                .toList();
+        return service.batch(ops, userId, role);
+    }
+
+    /** Mixed create/update/complete/delete operations, applied as one batch. */
+    @PatchMapping("/batch")
+    public List<BatchItemResult> batch(@RequestHeader("X-User-Id") String userId,
+                                       @RequestBody List<BatchOperation> req) {
+        UserRole role = userService.resolveRole(userId);
+        return service.batch(req, userId, role);
+    }
+
     @PutMapping("/{id}")
     public Task update(@RequestHeader("X-User-Id") String userId,
                        @PathVariable String id,
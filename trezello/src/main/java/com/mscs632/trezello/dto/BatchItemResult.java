@@ -0,0 +1,6 @@
+package com.mscs632.trezello.dto;
+
+import com.mscs632.trezello.model.Task;
+
+/** Outcome of one batch entry; {@code status} uses the same codes as the single-task endpoints. */
+public record BatchItemResult(int index, int status, String id, Task task, String error) {}
@@ -0,0 +1,17 @@
+package com.mscs632.trezello.dto;
+
+import com.mscs632.trezello.model.TaskStatus;
+
+/** One entry of a batch request; which fields are needed depends on {@code op}. */
+public record BatchOperation(
+        Op op,
+        String id,
+        Integer version,
+        String title,
+        String description,
+        String category,
+        String assigneeId,
+        TaskStatus status
+) {
+    public enum Op { CREATE, UPDATE, COMPLETE, DELETE }
+}
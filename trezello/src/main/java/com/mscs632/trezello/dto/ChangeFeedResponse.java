@@ -0,0 +1,10 @@
+package com.mscs632.trezello.dto;
+
+import java.util.List;
+
+/**
+ * Changes after the requested sequence. {@code seq} is the value to pass as
+ * {@code since} next time. {@code resync} means the requested position is no
+ * longer buffered and the client must reload the task list first.
+ */
+public record ChangeFeedResponse(long seq, boolean resync, List<TaskChangeEvent> changes) {}
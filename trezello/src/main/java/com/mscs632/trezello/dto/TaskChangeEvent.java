@@ -0,0 +1,7 @@
+package com.mscs632.trezello.dto;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+
+/** One entry of the change feed; {@code task} is null for deletes. */
+public record TaskChangeEvent(long seq, TaskChange.Type type, String taskId, Task task) {}
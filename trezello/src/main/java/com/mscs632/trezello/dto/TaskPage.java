@@ -0,0 +1,6 @@
+package com.mscs632.trezello.dto;
+
+import com.mscs632.trezello.model.Task;
+import java.util.List;
+
+public record TaskPage(List<Task> items, String nextCursor) {}
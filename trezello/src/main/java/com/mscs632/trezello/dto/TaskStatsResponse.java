@@ -0,0 +1,13 @@
+package com.mscs632.trezello.dto;
+
+import com.mscs632.trezello.model.TaskStatus;
+
+import java.util.Map;
+
+/**
+ * Task counts by status, overall and per assignee and category. {@code open}
+ * is everything not COMPLETED. Users get the counts of their own tasks only.
+ */
+public record TaskStatsResponse(long total, long open, Map<TaskStatus, Long> byStatus,
+                                Map<String, Map<TaskStatus, Long>> byAssignee,
+                                Map<String, Map<TaskStatus, Long>> byCategory) {}
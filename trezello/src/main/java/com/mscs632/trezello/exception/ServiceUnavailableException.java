@@ -0,0 +1,10 @@
+package com.mscs632.trezello.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+    public ServiceUnavailableException(String m, long retryAfterSeconds) {
+        super(m);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
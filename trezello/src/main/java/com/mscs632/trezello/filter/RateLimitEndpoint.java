@@ -0,0 +1,27 @@
+package com.mscs632.trezello.filter;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** {@code GET /actuator/ratelimits}: limits, load and the clients rejected most often. */
+@Component
+@Endpoint(id = "ratelimits")
+@ConditionalOnProperty(name = "trezello.rateLimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitEndpoint {
+    private static final int TOP_CLIENTS = 100;
+
+    private final RateLimitFilter filter;
+
+    public RateLimitEndpoint(RateLimitFilter filter) {
+        this.filter = filter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> rateLimits() {
+        return filter.snapshot(TOP_CLIENTS);
+    }
+}
@@ -0,0 +1,214 @@
+package com.mscs632.trezello.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the controllers. Each client address has
+ * separate token buckets for reads, writes and auth calls; an empty bucket
+ * answers 429. The unchecked {@code X-User-Id} header is not used, since a
+ * new id per request would get a fresh bucket each time. When the peer is one
+ * of {@code trezello.rateLimit.trustedProxies} (a replica passing writes on,
+ * say), the client is the address that proxy put in
+ * {@code X-Forwarded-For}. Admitted requests then need one of
+ * {@code trezello.rateLimit.maxConcurrent} permits, waiting at most
+ * {@code queueTimeoutMs}, or get 503, so overload is shed before the store
+ * saturates. The change feed's long polls and streams skip the permit since
+ * they hold it for their whole lifetime. Client state is kept in a bounded
+ * cache that forgets idle clients.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "trezello.rateLimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+    enum Kind { READ, WRITE, AUTH }
+
+    private record Limit(double perSecond, int burst) {}
+
+    /** Buckets and rejection counts of one client, indexed by {@link Kind}. */
+    private static final class Client {
+        final TokenBucket[] buckets = new TokenBucket[Kind.values().length];
+        final LongAdder[] rejected = new LongAdder[Kind.values().length];
+    }
+
+    private final Limit[] limits = new Limit[Kind.values().length];
+    private final Cache<String, Client> clients;
+    private final Set<String> trustedProxies;
+    private final Semaphore inFlight;
+    private final int maxConcurrent;
+    private final long queueTimeoutMs;
+    private final long shedRetryAfterSeconds;
+    private final Counter[] rejected = new Counter[Kind.values().length];
+    private final Counter shed;
+
+    public RateLimitFilter(MeterRegistry registry,
+                           @Value("${trezello.rateLimit.read.perSecond:50}") double readRate,
+                           @Value("${trezello.rateLimit.read.burst:100}") int readBurst,
+                           @Value("${trezello.rateLimit.write.perSecond:20}") double writeRate,
+                           @Value("${trezello.rateLimit.write.burst:40}") int writeBurst,
+                           @Value("${trezello.rateLimit.auth.perSecond:10}") double authRate,
+                           @Value("${trezello.rateLimit.auth.burst:20}") int authBurst,
+                           @Value("${trezello.rateLimit.maxConcurrent:64}") int maxConcurrent,
+                           @Value("${trezello.rateLimit.queueTimeoutMs:100}") long queueTimeoutMs,
+                           @Value("${trezello.rateLimit.retryAfterSeconds:1}") long shedRetryAfterSeconds,
+                           @Value("${trezello.rateLimit.maxClients:100000}") long maxClients,
+                           @Value("${trezello.rateLimit.idleSeconds:600}") long idleSeconds,
+                           @Value("${trezello.rateLimit.trustedProxies:}") String trustedProxies) {
+        limits[Kind.READ.ordinal()] = new Limit(readRate, readBurst);
+        limits[Kind.WRITE.ordinal()] = new Limit(writeRate, writeBurst);
+        limits[Kind.AUTH.ordinal()] = new Limit(authRate, authBurst);
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .build();
+        this.trustedProxies = split(trustedProxies);
+        this.maxConcurrent = maxConcurrent;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.shedRetryAfterSeconds = shedRetryAfterSeconds;
+        for (Kind k : Kind.values())
+            rejected[k.ordinal()] = Counter.builder("trezello.ratelimit.rejected").tag("kind", name(k)).register(registry);
+        this.shed = Counter.builder("trezello.ratelimit.shed").register(registry);
+        Gauge.builder("trezello.ratelimit.inflight", inFlight, s -> maxConcurrent - s.availablePermits()).register(registry);
+        Gauge.builder("trezello.ratelimit.clients", clients, Cache::estimatedSize).register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest req) {
+        return req.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        String path = req.getRequestURI();
+        Kind kind = path.startsWith("/auth/") ? Kind.AUTH
+                : switch (req.getMethod()) {
+                    case "GET", "HEAD", "OPTIONS" -> Kind.READ;
+                    default -> Kind.WRITE;
+                };
+        long waitNanos = take(clientAddress(req), kind);
+        if (waitNanos > 0) {
+            reject(res, 429, "Too many requests, slow down", TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            return;
+        }
+        if (path.startsWith("/tasks/changes")) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = inFlight.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            shed.increment();
+            reject(res, 503, "Server busy, retry shortly", shedRetryAfterSeconds);
+            return;
+        }
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /** The remote address, or the nearest forwarded hop while the address so far is a trusted proxy. */
+    String clientAddress(HttpServletRequest req) {
+        String client = req.getRemoteAddr();
+        if (!trustedProxies.contains(client)) return client;
+        List<String> hops = new ArrayList<>();
+        for (String header : Collections.list(req.getHeaders("X-Forwarded-For"))) hops.addAll(split(header));
+        for (int i = hops.size() - 1; i >= 0 && trustedProxies.contains(client); i--) client = hops.get(i);
+        return client;
+    }
+
+    private static Set<String> split(String list) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String part : list.split(",")) if (!part.isBlank()) out.add(part.trim());
+        return out;
+    }
+
+    private long take(String key, Kind kind) {
+        Client c = clients.get(key, k -> {
+            long now = System.nanoTime();
+            Client fresh = new Client();
+            for (Kind each : Kind.values()) {
+                Limit l = limits[each.ordinal()];
+                fresh.buckets[each.ordinal()] = new TokenBucket(l.perSecond(), l.burst(), now);
+                fresh.rejected[each.ordinal()] = new LongAdder();
+            }
+            return fresh;
+        });
+        long wait = c.buckets[kind.ordinal()].tryTake(System.nanoTime());
+        if (wait > 0) {
+            c.rejected[kind.ordinal()].increment();
+            rejected[kind.ordinal()].increment();
+        }
+        return wait;
+    }
+
+    private static void reject(HttpServletResponse res, int status, String message, long retryAfterSeconds) throws IOException {
+        res.setStatus(status);
+        res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        res.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    /** Limits, current load and the {@code top} tracked clients with the most rejections. */
+    Map<String, Object> snapshot(int top) {
+        record Rejections(String client, Map<String, Long> rejected, long total) {}
+        List<Rejections> worst = new ArrayList<>();
+        clients.asMap().forEach((key, c) -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            long total = 0;
+            for (Kind k : Kind.values()) {
+                long n = c.rejected[k.ordinal()].sum();
+                counts.put(name(k), n);
+                total += n;
+            }
+            if (total > 0) worst.add(new Rejections(key, counts, total));
+        });
+        worst.sort(Comparator.comparingLong(Rejections::total).reversed());
+
+        Map<String, Object> limitsOut = new LinkedHashMap<>();
+        for (Kind k : Kind.values()) limitsOut.put(name(k), limits[k.ordinal()]);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("limits", limitsOut);
+        out.put("maxConcurrent", maxConcurrent);
+        out.put("inFlight", maxConcurrent - inFlight.availablePermits());
+        out.put("shed", (long) shed.count());
+        out.put("clients", clients.estimatedSize());
+        out.put("rejectedClients", worst.subList(0, Math.min(top, worst.size())));
+        return out;
+    }
+
+    private static String name(Kind k) {
+        return k.name().toLowerCase(Locale.ROOT);
+    }
+}
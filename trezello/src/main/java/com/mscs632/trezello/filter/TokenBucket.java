@@ -0,0 +1,31 @@
+package com.mscs632.trezello.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code burst} tokens and refilling
+ * {@code perSecond} of them. The only state is the time at which the bucket
+ * will be full again (the GCRA form of a token bucket); taking a token moves
+ * it one refill interval later with a CAS.
+ */
+final class TokenBucket {
+    private final long interval;
+    private final long capacity;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double perSecond, int burst, long nowNanos) {
+        this.interval = Math.max(1, (long) (1e9 / perSecond));
+        this.capacity = burst * interval;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /** Takes a token and returns 0, or returns the nanoseconds until one is available. */
+    long tryTake(long nowNanos) {
+        while (true) {
+            long full = fullAt.get();
+            long next = Math.max(full, nowNanos) + interval;
+            if (next - nowNanos > capacity) return next - nowNanos - capacity;
+            if (fullAt.compareAndSet(full, next)) return 0;
+        }
+    }
+}
@@ -13,4 +13,18 @@ public class Task {
     private int version;
     private String createdAt;
     private String updatedAt;
+
+    public Task copy() {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle(title);
+        t.setDescription(description);
+        t.setStatus(status);
+        t.setCategory(category);
+        t.setAssigneeId(assigneeId);
+        t.setVersion(version);
+        t.setCreatedAt(createdAt);
+        t.setUpdatedAt(updatedAt);
+        return t;
+    }
 }
@@ -0,0 +1,10 @@
+package com.mscs632.trezello.model;
+
+/** A committed task mutation; {@code before} is null for creates, {@code after} for deletes. */
+public record TaskChange(Type type, Task before, Task after) {
+    public enum Type { CREATED, UPDATED, COMPLETED, DELETED }
+
+    public String taskId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
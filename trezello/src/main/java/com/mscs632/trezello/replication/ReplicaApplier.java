@@ -0,0 +1,281 @@
+package com.mscs632.trezello.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.replication.ReplicationLog.Entry;
+import com.mscs632.trezello.replication.ReplicationLog.ReplicaStatus;
+import com.mscs632.trezello.service.TaskChangeListener;
+import com.mscs632.trezello.store.TaskStore;
+import com.mscs632.trezello.store.UserStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Replica side of replication ({@code trezello.store.type=replica}): tails
+ * the primary's replication log every {@code pollMs} and applies each entry
+ * to this instance's memory stores, passing task changes to the same
+ * listeners {@link com.mscs632.trezello.service.TaskService} notifies, so
+ * search, stats, the change feed and the list cache follow along.
+ *
+ * <p>The primary appends changes to one task from different threads in
+ * whatever order they report, so an update is only applied over an older
+ * version and deleted ids stay deleted. The copy at the start of a segment
+ * is taken as it is, and tasks missing from it are removed. It starts the
+ * tombstones over with the ids the primary deleted during the two segments
+ * before, so a late update appended after the copy is still dropped. Only
+ * the applier thread writes to the stores.
+ */
+@Component
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "replica")
+public class ReplicaApplier implements DisposableBean {
+    private static final long REPORT_INTERVAL_MS = 1000;
+
+    private final TaskStore tasks;
+    private final UserStore users;
+    private final List<TaskChangeListener> listeners;
+    private final ObjectMapper om;
+    private final Path dir;
+    private final String name;
+    private final Timer delay;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+    private volatile long appliedSeq;
+    private volatile long appliedAt;    // primary clock of the last applied entry
+    private volatile long lastDelayMs;
+    // written by the applier thread only
+    private volatile Path segment;
+    private volatile long offset;
+    private Set<String> copied;         // ids seen since RESET, null outside a copy
+    private final Set<String> deleted = new HashSet<>();   // refilled by each copy
+    private long reportedSeq = -1, reportedAt;
+    private final ScheduledExecutorService tail = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replica-applier");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReplicaApplier(TaskStore tasks, UserStore users, List<TaskChangeListener> listeners, ObjectMapper om,
+                          MeterRegistry registry,
+                          @Value("${trezello.replication.dir:${trezello.dataDir}/replication}") String dir,
+                          @Value("${trezello.replication.name:}") String name,
+                          @Value("${trezello.replication.pollMs:20}") long pollMs) {
+        this.tasks = tasks;
+        this.users = users;
+        this.listeners = listeners;
+        this.om = om;
+        this.dir = Path.of(dir);
+        this.name = name.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : name;
+        this.delay = Timer.builder("trezello.replication.delay")
+                .description("Time from the primary writing an entry to this replica applying it").register(registry);
+        Gauge.builder("trezello.replication.applied", this, ReplicaApplier::appliedSeq).register(registry);
+        Gauge.builder("trezello.replication.lag", this, ReplicaApplier::lagSeconds).baseUnit("seconds").register(registry);
+        // start from whatever the primary has written so far, so the first requests see its data
+        quietly(this::poll);
+        tail.scheduleWithFixedDelay(() -> quietly(this::poll), pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Number of the last log entry applied here. */
+    public long appliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * How far behind the primary this replica is: the delay of the last
+     * applied entry, or the age of that entry while more are waiting.
+     */
+    public double lagSeconds() {
+        long lag = lastDelayMs;
+        try {
+            if (segment != null && (Files.size(segment) > offset || hasNewer()))
+                lag = Math.max(lag, System.currentTimeMillis() - appliedAt);
+        } catch (IOException e) {
+            // the segment was just dropped; the next poll moves on
+        }
+        return lag / 1000.0;
+    }
+
+    /** Waits until entry {@code seq} has been applied; false if that takes longer than {@code timeoutMs}. */
+    public boolean awaitApplied(long seq, long timeoutMs) throws InterruptedException {
+        if (appliedSeq >= seq) return true;
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (appliedSeq < seq) {
+                if (remaining <= 0) return false;
+                remaining = advanced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void poll() {
+        try {
+            if (segment == null || !Files.exists(segment)) {
+                // first start, or fallen so far behind that the segment is gone: start over from the newest copy
+                List<Path> segments = ReplicationLog.segments(dir);
+                if (segments.isEmpty()) return;
+                segment = segments.get(segments.size() - 1);
+                offset = 0;
+            }
+            long before = appliedSeq;
+            readAvailable();
+            // the primary finishes a segment before it creates the next one, so once a newer one shows up
+            // everything left in this one is already there
+            for (Path next; (next = newer()) != null; ) {
+                readAvailable();
+                segment = next;
+                offset = 0;
+                readAvailable();
+            }
+            if (appliedSeq != before) {
+                lock.lock();
+                try {
+                    advanced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            report();
+        } catch (NoSuchFileException e) {
+            segment = null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void readAvailable() throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size <= offset) return;
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size - offset, 1 << 20));
+            while (offset < size) {
+                buf.clear();
+                int n = ch.read(buf, offset);
+                if (n <= 0) break;
+                byte[] bytes = buf.array();
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (bytes[i] != '\n') continue;
+                    apply(om.readValue(bytes, start, i - start, Entry.class));
+                    start = i + 1;
+                }
+                // a torn line at the end is read again on the next poll
+                if (start == 0) {
+                    if (n == buf.capacity()) buf = ByteBuffer.allocate(buf.capacity() * 2);
+                    else break;
+                }
+                offset += start;
+            }
+        }
+    }
+
+    private void apply(Entry e) {
+        switch (e.op()) {
+            case RESET -> {
+                copied = new HashSet<>();
+                deleted.clear();
+            }
+            case USER -> users.save(e.user());
+            case TASK -> {
+                Task after = e.task();
+                Task before = tasks.findById(after.getId()).orElse(null);
+                if (copied != null) copied.add(after.getId());
+                else if (deleted.contains(after.getId()) || (before != null && before.getVersion() >= after.getVersion())) break;
+                if (after.equals(before)) break;
+                tasks.upsert(after);
+                notify(before, after);
+            }
+            case TASK_DELETED -> {
+                deleted.add(e.id());
+                tasks.findById(e.id()).ifPresent(this::delete);
+            }
+            case SNAPSHOT_END -> {
+                for (Task t : tasks.findAll()) if (!copied.contains(t.getId())) delete(t);
+                copied = null;
+            }
+        }
+        appliedSeq = e.seq();
+        appliedAt = e.at();
+        lastDelayMs = Math.max(0, System.currentTimeMillis() - e.at());
+        delay.record(lastDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void delete(Task t) {
+        tasks.deleteById(t.getId()).ifPresent(removed -> notify(removed, null));
+    }
+
+    private void notify(Task before, Task after) {
+        TaskChange.Type type = before == null ? TaskChange.Type.CREATED
+                : after == null ? TaskChange.Type.DELETED
+                : after.getStatus() == TaskStatus.COMPLETED && before.getStatus() != TaskStatus.COMPLETED
+                ? TaskChange.Type.COMPLETED : TaskChange.Type.UPDATED;
+        TaskChange change = new TaskChange(type, before, after);
+        for (TaskChangeListener l : listeners) l.onTaskChange(change);
+    }
+
+    private Path newer() throws IOException {
+        for (Path p : ReplicationLog.segments(dir)) if (p.compareTo(segment) > 0) return p;
+        return null;
+    }
+
+    private boolean hasNewer() throws IOException {
+        return newer() != null;
+    }
+
+    /** Writes this replica's position for the primary, when it moved or once a second. */
+    private void report() throws IOException {
+        long now = System.currentTimeMillis();
+        if (appliedSeq == reportedSeq && now - reportedAt < REPORT_INTERVAL_MS) return;
+        Path replicas = ReplicationLog.replicas(dir);
+        if (!Files.isDirectory(replicas)) return;
+        String file = name.replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+        Path tmp = replicas.resolve(file + ".tmp");
+        om.writeValue(tmp.toFile(), new ReplicaStatus(name, appliedSeq, lagSeconds(), now));
+        Files.move(tmp, replicas.resolve(file), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        reportedSeq = appliedSeq;
+        reportedAt = now;
+    }
+
+    /** Position and lag of this replica. */
+    Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("role", "replica");
+        out.put("name", name);
+        out.put("dir", dir.toAbsolutePath().toString());
+        Path s = segment;
+        out.put("segment", s == null ? null : s.getFileName().toString());
+        out.put("appliedSeq", appliedSeq);
+        out.put("lagSeconds", lagSeconds());
+        return out;
+    }
+
+    private static void quietly(Runnable r) {
+        try { r.run(); }
+        catch (RuntimeException e) { /* retried on the next tick */ }
+    }
+
+    @Override public void destroy() {
+        tail.shutdown();
+    }
+}
@@ -0,0 +1,141 @@
+package com.mscs632.trezello.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Keeps a replica read-only. GETs are answered here; everything else (task
+ * writes, signup and login) is passed on to {@code trezello.replication.primaryUrl}
+ * and the primary's answer returned as is, or refused with 421 when no
+ * primary is configured. A GET carrying {@code X-Min-Seq} (the
+ * {@code X-Replication-Seq} of an earlier write) waits up to
+ * {@code maxWaitMs} for that entry to be applied, else gets 503, so a client
+ * always reads its own writes. Responses carry the replica's position in
+ * {@code X-Replication-Seq}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "replica")
+public class ReplicaFilter extends OncePerRequestFilter {
+    public static final String MIN_SEQ = "X-Min-Seq";
+    // managed by the servlet container or the HTTP client on each hop
+    private static final Set<String> HOP_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private final ReplicaApplier applier;
+    private final String primaryUrl;
+    private final long maxWaitMs;
+    private final HttpClient http;
+
+    public ReplicaFilter(ReplicaApplier applier,
+                         @Value("${trezello.replication.primaryUrl:}") String primaryUrl,
+                         @Value("${trezello.replication.maxWaitMs:1000}") long maxWaitMs) {
+        this.applier = applier;
+        this.primaryUrl = primaryUrl.replaceAll("/+$", "");
+        this.maxWaitMs = maxWaitMs;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest req) {
+        return req.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        switch (req.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> {}
+            default -> {
+                if (primaryUrl.isEmpty()) reject(res, 421, "Read-only replica, send writes to the primary", 0);
+                else forward(req, res);
+                return;
+            }
+        }
+
+        String minSeq = req.getHeader(MIN_SEQ);
+        if (minSeq != null) {
+            long seq;
+            try {
+                seq = Long.parseLong(minSeq.trim());
+            } catch (NumberFormatException e) {
+                reject(res, 400, MIN_SEQ + " must be a number", 0);
+                return;
+            }
+            boolean caughtUp;
+            try {
+                caughtUp = applier.awaitApplied(seq, maxWaitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                caughtUp = false;
+            }
+            if (!caughtUp) {
+                reject(res, 503, "Replica has not caught up yet, retry shortly", 1);
+                return;
+            }
+        }
+        res.setHeader(ReplicationSeqFilter.SEQ, String.valueOf(applier.appliedSeq()));
+        chain.doFilter(req, res);
+    }
+
+    private void forward(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        String query = req.getQueryString();
+        HttpRequest.Builder out = HttpRequest.newBuilder(URI.create(primaryUrl + req.getRequestURI()
+                        + (query == null ? "" : "?" + query)))
+                .timeout(Duration.ofSeconds(30))
+                .method(req.getMethod(), HttpRequest.BodyPublishers.ofByteArray(req.getInputStream().readAllBytes()));
+        for (String name : Collections.list(req.getHeaderNames())) {
+            if (HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) continue;
+            for (String value : Collections.list(req.getHeaders(name))) out.header(name, value);
+        }
+        out.header("X-Forwarded-For", req.getRemoteAddr());
+
+        HttpResponse<byte[]> in;
+        try {
+            in = http.send(out.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            reject(res, 502, "Primary unreachable", 0);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(res, 502, "Primary unreachable", 0);
+            return;
+        }
+        res.setStatus(in.statusCode());
+        in.headers().map().forEach((name, values) -> {
+            if (HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT)) || name.startsWith(":")) return;
+            for (String value : values) res.addHeader(name, value);
+        });
+        res.getOutputStream().write(in.body());
+    }
+
+    private static void reject(HttpServletResponse res, int status, String message, long retryAfterSeconds) throws IOException {
+        res.setStatus(status);
+        if (retryAfterSeconds > 0) res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        res.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
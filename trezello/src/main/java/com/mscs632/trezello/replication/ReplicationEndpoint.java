@@ -0,0 +1,30 @@
+package com.mscs632.trezello.replication;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** {@code GET /actuator/replication}: log head and replica lag on a primary, position and lag on a replica. */
+@Component
+@Endpoint(id = "replication")
+public class ReplicationEndpoint {
+    private final ObjectProvider<ReplicationPublisher> publisher;
+    private final ObjectProvider<ReplicaApplier> applier;
+
+    public ReplicationEndpoint(ObjectProvider<ReplicationPublisher> publisher, ObjectProvider<ReplicaApplier> applier) {
+        this.publisher = publisher;
+        this.applier = applier;
+    }
+
+    @ReadOperation
+    public Map<String, Object> replication() {
+        ReplicationPublisher p = publisher.getIfAvailable();
+        if (p != null) return p.status();
+        ReplicaApplier a = applier.getIfAvailable();
+        if (a != null) return a.status();
+        return Map.of("role", "standalone");
+    }
+}
@@ -0,0 +1,75 @@
+package com.mscs632.trezello.replication;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Layout of the replication directory the primary writes and its replicas
+ * read. Entries are numbered and stored as one compact JSON line each, in
+ * segment files named after the number of their first entry. Every segment
+ * opens with a copy of all users and tasks (RESET up to SNAPSHOT_END), all
+ * under the segment's number, so a replica can start from the newest
+ * segment alone. Replicas report their
+ * position under {@code replicas/}.
+ */
+final class ReplicationLog {
+    private ReplicationLog() {}
+
+    enum Op { RESET, USER, TASK, TASK_DELETED, SNAPSHOT_END }
+
+    /** {@code at} is the primary's clock in epoch millis when the entry was written. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(long seq, long at, Op op, Task task, User user, String id) {}
+
+    /** Written by each replica after it applies entries; {@code updatedAt} is its own clock. */
+    record ReplicaStatus(String name, long appliedSeq, double lagSeconds, long updatedAt) {}
+
+    private static final String SUFFIX = ".log";
+
+    static Path segment(Path dir, long firstSeq) {
+        return dir.resolve(String.format("%020d", firstSeq) + SUFFIX);
+    }
+
+    /** Segment files, oldest first. */
+    static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("\\d{20}\\" + SUFFIX)).sorted().toList();
+        }
+    }
+
+    static Path replicas(Path dir) {
+        return dir.resolve("replicas");
+    }
+
+    /** The last complete line of {@code file}, read from the end; null if there is none. */
+    static byte[] lastLine(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            for (int window = 4096; ; window *= 2) {
+                long from = Math.max(0, size - window);
+                ByteBuffer buf = ByteBuffer.allocate((int) (size - from));
+                while (buf.hasRemaining() && ch.read(buf, from + buf.position()) >= 0) {}
+                byte[] bytes = buf.array();
+                int end = bytes.length - 1;
+                while (end >= 0 && bytes[end] != '\n') end--;   // drop a torn last line
+                if (end < 0) {
+                    if (from == 0) return null;
+                    continue;
+                }
+                int start = end - 1;
+                while (start >= 0 && bytes[start] != '\n') start--;
+                if (start >= 0 || from == 0) return Arrays.copyOfRange(bytes, start + 1, end);
+            }
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.mscs632.trezello.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.User;
+import com.mscs632.trezello.replication.ReplicationLog.Entry;
+import com.mscs632.trezello.replication.ReplicationLog.Op;
+import com.mscs632.trezello.replication.ReplicationLog.ReplicaStatus;
+import com.mscs632.trezello.service.TaskChangeListener;
+import com.mscs632.trezello.service.UserChangeListener;
+import com.mscs632.trezello.store.TaskStore;
+import com.mscs632.trezello.store.UserStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Primary side of replication ({@code trezello.replication.enabled=true}):
+ * appends every task and user change to the replication log in the order it
+ * is reported. Each start, and each time {@code segmentBytes} of changes
+ * have been appended, opens a new segment with a copy of the stores; the
+ * two newest segments are kept. The copy is taken and written on a
+ * background thread without the log lock, so writers are not held up;
+ * changes reported meanwhile are numbered after it and appended once it is
+ * written. Entries are not fsynced: replicas read them through the page
+ * cache, and a restarted primary starts over from a fresh copy anyway.
+ * The copy also lists the tasks deleted during the two
+ * previous segments, so a late update to one of them that lands after the
+ * copy cannot bring it back on a replica.
+ *
+ * <p>Changes are reported after the stores have committed them, so a
+ * failed append does not fail the request. It is logged and replication is
+ * marked broken (in the status and {@code trezello.replication.broken}),
+ * since replicas are now missing a change. The next change starts a new
+ * segment instead, whose copy brings them back in line.
+ *
+ * <p>Moves into the archive are not changes and are not logged. With
+ * archiving on, copies include archived tasks, so replicas keep those in
+ * memory alongside the active ones.
+ *
+ * <p>Reads the positions replicas report and publishes how far behind each
+ * one is.
+ */
+@Component
+@ConditionalOnProperty(name = "trezello.replication.enabled", havingValue = "true")
+public class ReplicationPublisher implements TaskChangeListener, UserChangeListener, DisposableBean {
+    private static final int KEEP_SEGMENTS = 2;
+    // replicas that have not reported for this long are dropped from the gauges
+    private static final long REPLICA_TIMEOUT_MS = 60_000;
+    private static final Logger log = LoggerFactory.getLogger(ReplicationPublisher.class);
+
+    private final TaskStore tasks;
+    private final UserStore users;
+    private final ObjectMapper om;
+    private final ObjectWriter entryWriter;
+    private final Path dir;
+    private final long segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel active;         // guarded by lock
+    private Path activePath;            // guarded by lock
+    private long activeBytes;           // guarded by lock
+    private long copyBytes;             // guarded by lock; the copy at the start of the active segment
+    private long lastSeq;               // guarded by lock
+    private List<byte[]> pending;       // guarded by lock; lines held back while a copy is written, null otherwise
+    // ids deleted in the active and the previous segment, repeated in the next copy; guarded by lock
+    private Set<String> deletedNow = new HashSet<>(), deletedBefore = new HashSet<>();
+    private volatile String broken;     // written under lock; why entries may be missing, null while the log is whole
+    private final AtomicLong head = new AtomicLong();
+    private volatile List<ReplicaStatus> replicas = List.of();
+    private final MultiGauge behindGauge, lagGauge;
+    private final ExecutorService roller = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "replication-roll");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replication-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReplicationPublisher(TaskStore tasks, UserStore users, ObjectMapper om, MeterRegistry registry,
+                                @Value("${trezello.replication.dir:${trezello.dataDir}/replication}") String dir,
+                                @Value("${trezello.replication.segmentBytes:67108864}") long segmentBytes) throws IOException {
+        this.tasks = tasks;
+        this.users = users;
+        this.om = om;
+        this.entryWriter = om.writerFor(Entry.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(ReplicationLog.replicas(this.dir));
+
+        // numbering carries on from the previous run so sequence tokens handed out before a restart stay ordered
+        List<Path> existing = ReplicationLog.segments(this.dir);
+        if (!existing.isEmpty()) {
+            byte[] last = ReplicationLog.lastLine(existing.get(existing.size() - 1));
+            if (last != null) lastSeq = om.readValue(last, Entry.class).seq();
+        }
+        Runnable roll;
+        lock.lock();
+        try {
+            roll = startRoll();
+        } finally {
+            lock.unlock();
+        }
+        roll.run();
+
+        Gauge.builder("trezello.replication.head", head, AtomicLong::get).register(registry);
+        Gauge.builder("trezello.replication.broken", this, p -> p.broken == null ? 0 : 1).register(registry);
+        this.behindGauge = MultiGauge.builder("trezello.replication.replica.behind")
+                .description("Log entries the replica has not applied yet").register(registry);
+        this.lagGauge = MultiGauge.builder("trezello.replication.replica.lag")
+                .description("Replication delay the replica last reported").baseUnit("seconds").register(registry);
+        monitor.scheduleWithFixedDelay(this::refreshReplicas, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** Number of the last entry; every change reported so far is at or below it. */
+    public long head() {
+        return head.get();
+    }
+
+    /** Waits until no new segment is being written. */
+    void awaitRoll() throws Exception {
+        while (true) {
+            roller.submit(() -> {}).get();
+            lock.lock();
+            try {
+                if (pending == null) return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override public void onTaskChange(TaskChange c) {
+        long now = System.currentTimeMillis();
+        append(c.after() != null
+                ? new Entry(0, now, Op.TASK, c.after(), null, null)
+                : new Entry(0, now, Op.TASK_DELETED, null, null, c.taskId()));
+    }
+
+    @Override public void onUserSaved(User u) {
+        append(new Entry(0, System.currentTimeMillis(), Op.USER, null, u, null));
+    }
+
+    private void append(Entry e) {
+        lock.lock();
+        try {
+            if (e.op() == Op.TASK_DELETED) deletedNow.add(e.id());
+            // the copy holds this change along with whatever went missing; the repeat after it is harmless
+            if (pending == null && broken != null) roller.execute(startRoll());
+            byte[] line = line(e);
+            if (pending != null) {
+                pending.add(line);
+                head.set(lastSeq);
+                return;
+            }
+            write(line);
+            if (activeBytes - copyBytes >= segmentBytes) roller.execute(startRoll());
+        } catch (IOException | RuntimeException ex) {
+            if (broken == null) log.error("Replication log append failed, replicas miss changes until the next segment", ex);
+            broken = ex.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds the lock. Numbers {@code e} and returns it as a log line. */
+    private byte[] line(Entry e) throws IOException {
+        return line(++lastSeq, e);
+    }
+
+    private byte[] line(long seq, Entry e) throws IOException {
+        Entry numbered = new Entry(seq, e.at(), e.op(), e.task(), e.user(), e.id());
+        byte[] json = entryWriter.writeValueAsBytes(numbered);
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    /** Caller holds the lock. */
+    private void write(byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) activeBytes += active.write(buf);
+        head.set(lastSeq);
+    }
+
+    /**
+     * Caller holds the lock. Finishes the active segment and reserves one
+     * number for the whole copy that starts the next; the returned task
+     * writes it. Until then, changes are numbered after the copy and held in
+     * {@link #pending}.
+     */
+    private Runnable startRoll() {
+        pending = new ArrayList<>();
+        long seq = ++lastSeq;
+        head.set(seq);
+        Set<String> deleted = new HashSet<>(deletedBefore);
+        deleted.addAll(deletedNow);
+        deletedBefore = deletedNow;
+        deletedNow = new HashSet<>();
+        if (active != null) closeQuietly(active);
+        active = null;
+        return () -> roll(seq, deleted);
+    }
+
+    /**
+     * Writes a segment starting with a copy of the stores, all of it entry
+     * {@code seq}, then the changes held back meanwhile. The stores are read
+     * without the lock, so writers carry on; a change already in the copy is
+     * repeated after it, which replicas ignore. A failure marks replication
+     * broken, and the next change starts another segment.
+     */
+    private void roll(long seq, Set<String> deleted) {
+        Path path = ReplicationLog.segment(dir, seq);
+        FileChannel ch = null;
+        try {
+            ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            long now = System.currentTimeMillis();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            copy.write(line(seq, new Entry(0, now, Op.RESET, null, null, null)));
+            for (User u : users.findAll()) copy(ch, copy, line(seq, new Entry(0, now, Op.USER, null, u, null)));
+            for (String id : deleted) copy(ch, copy, line(seq, new Entry(0, now, Op.TASK_DELETED, null, null, id)));
+            for (Task t : tasks.findAll()) copy(ch, copy, line(seq, new Entry(0, now, Op.TASK, t, null, null)));
+            copy.write(line(seq, new Entry(0, now, Op.SNAPSHOT_END, null, null, null)));
+            write(ch, copy.toByteArray());
+
+            lock.lock();
+            try {
+                active = ch;
+                activePath = path;
+                activeBytes = copyBytes = ch.size();
+                for (byte[] line : pending) write(line);
+                pending = null;
+                if (broken != null) {
+                    broken = null;
+                    log.info("Replication log repaired with a new segment, {}", path.getFileName());
+                }
+                if (activeBytes - copyBytes >= segmentBytes) roller.execute(startRoll());
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException | RuntimeException ex) {
+            lock.lock();
+            try {
+                if (ch != null && active != ch) closeQuietly(ch);
+                deletedNow.addAll(deleted);
+                pending = null;
+                if (broken == null) log.error("Replication log segment failed, replicas miss changes until the next segment", ex);
+                broken = ex.toString();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        try {
+            List<Path> segments = ReplicationLog.segments(dir);
+            for (Path old : segments.subList(0, Math.max(0, segments.size() - KEEP_SEGMENTS)))
+                Files.deleteIfExists(old);
+        } catch (IOException e) {
+            // dropped after the next segment instead
+        }
+    }
+
+    /** Adds a line to a copy being built, writing the copy out every megabyte. */
+    private static void copy(FileChannel ch, ByteArrayOutputStream copy, byte[] line) throws IOException {
+        copy.write(line);
+        if (copy.size() >= 1 << 20) { write(ch, copy.toByteArray()); copy.reset(); }
+    }
+
+    private static void write(FileChannel ch, byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        // entries are not fsynced, so a failed close loses nothing replicas could read
+        try { ch.close(); }
+        catch (IOException e) { /* ignored */ }
+    }
+
+    private void refreshReplicas() {
+        try {
+            long now = System.currentTimeMillis();
+            List<ReplicaStatus> found = new ArrayList<>();
+            try (Stream<Path> files = Files.list(ReplicationLog.replicas(dir))) {
+                for (Path f : files.filter(p -> p.toString().endsWith(".json")).toList()) {
+                    try {
+                        ReplicaStatus s = om.readValue(f.toFile(), ReplicaStatus.class);
+                        if (now - s.updatedAt() <= REPLICA_TIMEOUT_MS) found.add(s);
+                    } catch (IOException e) {
+                        // being replaced right now; read again next time
+                    }
+                }
+            }
+            found.sort(Comparator.comparing(ReplicaStatus::name));
+            replicas = List.copyOf(found);
+            behindGauge.register(found.stream().map(s -> MultiGauge.Row.of(Tags.of("replica", s.name()),
+                    Math.max(0, head() - s.appliedSeq()))).toList(), true);
+            lagGauge.register(found.stream().map(s -> MultiGauge.Row.of(Tags.of("replica", s.name()),
+                    s.lagSeconds())).toList(), true);
+        } catch (IOException | RuntimeException e) {
+            // retried on the next tick
+        }
+    }
+
+    /** Head, active segment and what each live replica last reported. */
+    Map<String, Object> status() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (ReplicaStatus s : replicas) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", s.name());
+            row.put("appliedSeq", s.appliedSeq());
+            row.put("behind", Math.max(0, head() - s.appliedSeq()));
+            row.put("lagSeconds", s.lagSeconds());
+            row.put("reportedSecondsAgo", (now - s.updatedAt()) / 1000.0);
+            rows.add(row);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("role", "primary");
+        out.put("dir", dir.toAbsolutePath().toString());
+        out.put("head", head());
+        out.put("broken", broken);
+        lock.lock();
+        try {
+            out.put("segment", activePath == null ? null : activePath.getFileName().toString());
+            out.put("segmentBytes", activeBytes);
+        } finally {
+            lock.unlock();
+        }
+        out.put("replicas", rows);
+        return out;
+    }
+
+    @Override public void destroy() throws IOException, InterruptedException {
+        monitor.shutdown();
+        roller.shutdown();
+        roller.awaitTermination(10, TimeUnit.SECONDS);
+        lock.lock();
+        try {
+            if (active != null) active.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
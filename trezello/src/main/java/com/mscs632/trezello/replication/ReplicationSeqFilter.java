@@ -0,0 +1,81 @@
+package com.mscs632.trezello.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Gives every write answered by the primary an {@code X-Replication-Seq}
+ * header: the log position once the request's changes were appended. Sent
+ * back to a replica as {@code X-Min-Seq}, it makes the replica wait until it
+ * has those changes. The header is set when the body starts, after the
+ * controller has made its changes but before the response is committed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "trezello.replication.enabled", havingValue = "true")
+public class ReplicationSeqFilter extends OncePerRequestFilter {
+    public static final String SEQ = "X-Replication-Seq";
+
+    private final ReplicationPublisher publisher;
+
+    public ReplicationSeqFilter(ReplicationPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest req) {
+        return switch (req.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> true;
+            default -> req.getRequestURI().startsWith("/actuator");
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        Stamped stamped = new Stamped(res);
+        chain.doFilter(req, stamped);
+        if (!res.isCommitted()) stamped.stamp();
+    }
+
+    private final class Stamped extends HttpServletResponseWrapper {
+        private boolean stamped;
+
+        Stamped(HttpServletResponse res) {
+            super(res);
+        }
+
+        void stamp() {
+            if (stamped) return;
+            stamped = true;
+            setHeader(SEQ, String.valueOf(publisher.head()));
+        }
+
+        @Override public ServletOutputStream getOutputStream() throws IOException {
+            stamp();
+            return super.getOutputStream();
+        }
+
+        @Override public PrintWriter getWriter() throws IOException {
+            stamp();
+            return super.getWriter();
+        }
+
+        @Override public void flushBuffer() throws IOException {
+            stamp();
+            super.flushBuffer();
+        }
+    }
+}
@@ -6,39 +6,43 @@ import com.mscs632.trezello.exception.NotFoundException;
 import com.mscs632.trezello.model.User;
 import com.mscs632.trezello.model.UserRole;
 import com.mscs632.trezello.store.UserStore;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class AuthService {
     private final UserStore users;
-    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+    private final PasswordHasher bcrypt;
+    private final List<UserChangeListener> listeners;
 
-    public AuthService(UserStore users) { this.users = users; }
+    public AuthService(UserStore users, PasswordHasher bcrypt, List<UserChangeListener> listeners) {
+        this.users = users;
+        this.bcrypt = bcrypt;
+        this.listeners = listeners;
+    }
 
     public AuthResponse signup(SignupRequest req) {
         String username = req.username().trim();
         if (username.isEmpty()) throw new BadRequestException("Username required");
-        boolean exists = users.findAll().stream().anyMatch(u -> u.getUsername().equalsIgnoreCase(username));
-        if (exists) throw new BadRequestException("Username already exists");
+        if (users.findByUsername(username).isPresent()) throw new BadRequestException("Username already exists");
 
         User u = new User();
         u.setId(UUID.randomUUID().toString());
         u.setUsername(username);
         u.setRole(String.valueOf(UserRole.USER));
         u.setPasswordHash(bcrypt.encode(req.password()));
-        users.save(u);
+        // the check above only saves a wasted hash; saveIfAbsent is what decides concurrent signups
+        if (!users.saveIfAbsent(u)) throw new BadRequestException("Username already exists");
+        for (UserChangeListener l : listeners) l.onUserSaved(u);
 
         return new AuthResponse(u.getId(), u.getUsername(), UserRole.valueOf(u.getRole()));
     }
 
     public AuthResponse login(LoginRequest req) {
-        Optional<User> found = users.findAll().stream()
-                .filter(u -> u.getUsername().equalsIgnoreCase(req.username()))
-                .findFirst();
+        Optional<User> found = users.findByUsername(req.username());
 
         User u = found.orElseThrow(() -> new NotFoundException("User not found"));
 
@@ -0,0 +1,86 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on its own pool sized to the CPU count, so a login storm cannot
+ * tie up every servlet worker in hashing. The queue is bounded; once it is
+ * full new auth requests fail fast with 503 and Retry-After instead of piling
+ * up behind the ones already waiting.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor pool;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+    private final long retryAfterSeconds;
+
+    public PasswordHasher(MeterRegistry registry,
+                          @Value("${trezello.auth.bcryptStrength:10}") int strength,
+                          @Value("${trezello.auth.hashThreads:0}") int threads,
+                          @Value("${trezello.auth.hashQueueSize:64}") int queueSize,
+                          @Value("${trezello.auth.retryAfterSeconds:1}") long retryAfterSeconds) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.encodeTimer = Timer.builder("trezello.auth.hash").tag("op", "encode").register(registry);
+        this.matchTimer = Timer.builder("trezello.auth.hash").tag("op", "matches").register(registry);
+        this.rejected = Counter.builder("trezello.auth.hash.rejected").register(registry);
+        Gauge.builder("trezello.auth.hash.queue", pool, p -> p.getQueue().size()).register(registry);
+        Gauge.builder("trezello.auth.hash.active", pool, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    public String encode(String raw) {
+        return run(() -> encodeTimer.record(() -> bcrypt.encode(raw)));
+    }
+
+    public boolean matches(String raw, String hash) {
+        return run(() -> matchTimer.record(() -> bcrypt.matches(raw, hash)));
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> f;
+        try {
+            f = pool.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many sign-in attempts in progress, retry shortly", retryAfterSeconds);
+        }
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override public void destroy() {
+        pool.shutdownNow();
+    }
+}
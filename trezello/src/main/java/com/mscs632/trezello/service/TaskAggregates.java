@@ -0,0 +1,81 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.TaskStatsResponse;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.TaskStore;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Task counts per (assignee, category), one counter per status, counted from
+ * the store at startup and adjusted by every task change. Each change removes
+ * its before state and adds its after state; those deltas commute, so events
+ * for one task arriving out of order still add up. A stats request costs one
+ * pass over the assignee/category pairs, whatever the number of tasks.
+ */
+@Component
+public class TaskAggregates implements TaskChangeListener {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // assignee -> category -> count per status ordinal; "" stands in for a missing value
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLongArray>> counts = new ConcurrentHashMap<>();
+
+    public TaskAggregates(TaskStore store) {
+        for (Task t : store.findAll()) add(t, 1);
+    }
+
+    @Override public void onTaskChange(TaskChange c) {
+        if (c.before() != null) add(c.before(), -1);
+        if (c.after() != null) add(c.after(), 1);
+    }
+
+    private void add(Task t, int delta) {
+        if (t.getStatus() == null) return;
+        counts.computeIfAbsent(key(t.getAssigneeId()), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(t.getCategory()), k -> new AtomicLongArray(STATUSES.length))
+                .addAndGet(t.getStatus().ordinal(), delta);
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value;
+    }
+
+    public TaskStatsResponse stats(String actorId, UserRole role) {
+        long[] byStatus = new long[STATUSES.length];
+        Map<String, long[]> byAssignee = new TreeMap<>();
+        Map<String, long[]> byCategory = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, AtomicLongArray>> a : counts.entrySet()) {
+            if (role != UserRole.ADMIN && !a.getKey().equals(actorId)) continue;
+            for (Map.Entry<String, AtomicLongArray> c : a.getValue().entrySet()) {
+                for (int s = 0; s < STATUSES.length; s++) {
+                    long n = c.getValue().get(s);
+                    if (n == 0) continue;
+                    byStatus[s] += n;
+                    byAssignee.computeIfAbsent(a.getKey(), k -> new long[STATUSES.length])[s] += n;
+                    byCategory.computeIfAbsent(c.getKey(), k -> new long[STATUSES.length])[s] += n;
+                }
+            }
+        }
+        long total = Arrays.stream(byStatus).sum();
+        return new TaskStatsResponse(total, total - byStatus[TaskStatus.COMPLETED.ordinal()],
+                byStatus(byStatus), rows(byAssignee), rows(byCategory));
+    }
+
+    private static Map<String, Map<TaskStatus, Long>> rows(Map<String, long[]> counts) {
+        Map<String, Map<TaskStatus, Long>> rows = new LinkedHashMap<>();
+        counts.forEach((k, v) -> rows.put(k, byStatus(v)));
+        return rows;
+    }
+
+    private static Map<TaskStatus, Long> byStatus(long[] counts) {
+        Map<TaskStatus, Long> m = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus s : STATUSES) m.put(s, counts[s.ordinal()]);
+        return m;
+    }
+}
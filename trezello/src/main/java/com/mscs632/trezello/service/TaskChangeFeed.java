@@ -0,0 +1,212 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.ChangeFeedResponse;
+import com.mscs632.trezello.dto.TaskChangeEvent;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.UserRole;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of recent task mutations, numbered by a feed sequence.
+ * Clients read what happened after their last sequence, either by polling
+ * (optionally held open until something changes) or as a Server-Sent Events
+ * stream. A client whose position has been overwritten is told to resync.
+ *
+ * <p>Writers report changes from their own threads, so two changes to one
+ * task can arrive here in the opposite order to the one they were made in.
+ * The feed numbers a change only if it is newer, by task version, than the
+ * last one it published for that task, and drops the late one otherwise;
+ * a delete counts as newer than the version it removed. Versions are
+ * remembered for as long as the task has an entry in the ring.
+ *
+ * <p>Each stream is fed from the ring by its own task, one at a time per
+ * subscriber, so events go out in sequence order whatever order writers
+ * finish in, and a slow client only holds up itself. One that falls so far
+ * behind that its position leaves the ring gets a resync event instead.
+ */
+@Component
+public class TaskChangeFeed implements TaskChangeListener, DisposableBean {
+    private record Entry(TaskChangeEvent event, long position, String assigneeId, String previousAssigneeId) {
+        boolean visibleTo(String actorId, UserRole role) {
+            return role == UserRole.ADMIN
+                    || Objects.equals(actorId, assigneeId)
+                    || Objects.equals(actorId, previousAssigneeId);
+        }
+    }
+
+    private record Waiter(String actorId, UserRole role, long since, DeferredResult<ChangeFeedResponse> result) {}
+
+    private static final class Subscriber {
+        final String actorId;
+        final UserRole role;
+        final SseEmitter emitter;
+        // set while a drain is queued or running, so at most one runs per subscriber
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long lastSent;   // written by the drain only
+
+        Subscriber(String actorId, UserRole role, SseEmitter emitter) {
+            this.actorId = actorId;
+            this.role = role;
+            this.emitter = emitter;
+        }
+    }
+
+    private final Entry[] ring;
+    private final long maxWaitMs;
+    private final long streamTimeoutMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastSeq;                                   // guarded by lock
+    private final List<Waiter> waiters = new ArrayList<>(); // guarded by lock
+    private final Map<String, Long> published = new HashMap<>(); // guarded by lock; task id -> position
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // a drain blocks on its client's socket, so each gets a virtual thread of its own
+    private final ExecutorService dispatcher =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-change-dispatch-", 0).factory());
+
+    public TaskChangeFeed(@Value("${trezello.changes.capacity:10000}") int capacity,
+                          @Value("${trezello.changes.maxWaitMs:30000}") long maxWaitMs,
+                          @Value("${trezello.changes.streamTimeoutMs:1800000}") long streamTimeoutMs) {
+        this.ring = new Entry[capacity];
+        this.maxWaitMs = maxWaitMs;
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    @Override public void onTaskChange(TaskChange c) {
+        List<Waiter> ready;
+        long position = position(c);
+        lock.lock();
+        try {
+            Long last = published.get(c.taskId());
+            if (last != null && last >= position) return;
+            long seq = ++lastSeq;
+            Entry entry = new Entry(new TaskChangeEvent(seq, c.type(), c.taskId(), c.after()), position,
+                    c.after() == null ? null : c.after().getAssigneeId(),
+                    c.before() == null ? null : c.before().getAssigneeId());
+            int slot = (int) (seq % ring.length);
+            Entry old = ring[slot];
+            if (old != null) published.remove(old.event().taskId(), old.position());
+            ring[slot] = entry;
+            published.put(c.taskId(), position);
+            ready = new ArrayList<>(waiters);
+            waiters.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter w : ready) w.result().setResult(read(w.since(), w.actorId(), w.role()));
+        for (Subscriber sub : subscribers) drainLater(sub);
+    }
+
+    /** Orders changes to one task: by version, with a delete just after the version it removed. */
+    private static long position(TaskChange c) {
+        return c.after() != null ? 2L * c.after().getVersion() : 2L * c.before().getVersion() + 1;
+    }
+
+    /** Everything after {@code since} that the caller may see. */
+    public ChangeFeedResponse read(long since, String actorId, UserRole role) {
+        lock.lock();
+        try {
+            if (since < 0 || since > lastSeq || since < lastSeq - ring.length)
+                return new ChangeFeedResponse(lastSeq, true, List.of());
+            List<TaskChangeEvent> changes = new ArrayList<>();
+            for (long seq = since + 1; seq <= lastSeq; seq++) {
+                Entry e = ring[(int) (seq % ring.length)];
+                if (e.visibleTo(actorId, role)) changes.add(e.event());
+            }
+            return new ChangeFeedResponse(lastSeq, false, changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Like {@link #read}, but waits up to {@code waitMs} for a change when there is none yet. */
+    public DeferredResult<ChangeFeedResponse> poll(long since, String actorId, UserRole role, long waitMs) {
+        long timeout = Math.min(Math.max(waitMs, 0), maxWaitMs);
+        DeferredResult<ChangeFeedResponse> result =
+                new DeferredResult<>(timeout, new ChangeFeedResponse(since, false, List.of()));
+        lock.lock();
+        try {
+            if (timeout == 0 || since != lastSeq) {
+                result.setResult(read(since, actorId, role));
+                return result;
+            }
+            Waiter w = new Waiter(actorId, role, since, result);
+            waiters.add(w);
+            result.onCompletion(() -> {
+                lock.lock();
+                try { waiters.remove(w); }
+                finally { lock.unlock(); }
+            });
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /** Streams the backlog after {@code since}, then every new visible change, as SSE. */
+    public SseEmitter subscribe(long since, String actorId, UserRole role) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber sub = new Subscriber(actorId, role, emitter);
+        emitter.onCompletion(() -> subscribers.remove(sub));
+        emitter.onTimeout(() -> subscribers.remove(sub));
+        emitter.onError(e -> subscribers.remove(sub));
+        sub.lastSent = since;
+        subscribers.add(sub);
+        drainLater(sub);
+        return emitter;
+    }
+
+    private void drainLater(Subscriber sub) {
+        if (!sub.draining.compareAndSet(false, true)) return;
+        try {
+            dispatcher.execute(() -> drain(sub));
+        } catch (RejectedExecutionException e) {
+            // shutting down; destroy completes the stream
+        }
+    }
+
+    /** Sends what the ring holds after the subscriber's position, or a resync if that is gone. */
+    private void drain(Subscriber sub) {
+        ChangeFeedResponse next = read(sub.lastSent, sub.actorId, sub.role);
+        try {
+            if (next.resync())
+                sub.emitter.send(SseEmitter.event().id(Long.toString(next.seq())).name("resync").data(next));
+            for (TaskChangeEvent e : next.changes()) send(sub, e);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(sub);
+            sub.emitter.completeWithError(e);
+            return;
+        }
+        sub.lastSent = next.seq();
+        sub.draining.set(false);
+        // a change numbered after the read found the drain still flagged and left it to us
+        if (seq() > sub.lastSent) drainLater(sub);
+    }
+
+    private long seq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void send(Subscriber sub, TaskChangeEvent e) throws IOException {
+        sub.emitter.send(SseEmitter.event().id(Long.toString(e.seq())).name("change").data(e));
+    }
+
+    @Override public void destroy() {
+        dispatcher.shutdownNow();
+        for (Subscriber sub : subscribers) sub.emitter.complete();
+    }
+}
@@ -0,0 +1,11 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.model.TaskChange;
+
+/**
+ * Notified by {@link TaskService} after each task mutation has been written
+ * to the store; for a batch, once the whole batch has committed.
+ */
+public interface TaskChangeListener {
+    void onTaskChange(TaskChange change);
+}
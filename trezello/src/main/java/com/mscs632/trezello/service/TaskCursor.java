@@ -0,0 +1,51 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.exception.BadRequestException;
+import com.mscs632.trezello.model.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in the (createdAt, id) ordering, handed to clients as an opaque
+ * token. createdAt never changes, so editing a task does not move it to
+ * another page while a client walks the list. A createdAt that is not an
+ * ISO instant (hand-edited data) sorts as the epoch instead of failing.
+ */
+record TaskCursor(Instant createdAt, String id) implements Comparable<TaskCursor> {
+    private static final Comparator<TaskCursor> ORDER =
+            Comparator.comparing(TaskCursor::createdAt).thenComparing(TaskCursor::id);
+
+    static TaskCursor of(Task t) {
+        return new TaskCursor(instant(t.getCreatedAt()), t.getId());
+    }
+
+    private static Instant instant(String text) {
+        if (text == null) return Instant.EPOCH;
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    static TaskCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new TaskCursor(Instant.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override public int compareTo(TaskCursor o) { return ORDER.compare(this, o); }
+}
@@ -0,0 +1,116 @@
+package com.mscs632.trezello.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.store.TaskQuery;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized {@code GET /tasks} bodies keyed by the effective query, so a
+ * repeated list is a byte copy instead of a store scan plus Jackson. The key
+ * already carries the actor: a USER's query is pinned to their own id and an
+ * ADMIN's does not depend on who asks. A task change drops exactly the
+ * entries whose query matches the task before or after the change; the rest
+ * stay valid. Changes no listener hears of, such as archive moves, drop
+ * everything (see {@link com.mscs632.trezello.store.TaskStore#outsideChangeSeq()}).
+ *
+ * <p>Every body gets a new {@link Body#generation()} when it is loaded, and
+ * its ETag is built from that rather than from the store's sequence. A
+ * request between a write and its invalidation then gets the old body under
+ * the old tag, never the old body under a new one. Bounded by total body
+ * bytes ({@code cache.*} metrics for hits and evictions,
+ * {@code trezello.listcache.bytes} for the footprint).
+ */
+@Component
+public class TaskListCache implements TaskChangeListener {
+    // rough per-entry overhead on top of the body arrays: key, entry and map node
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * A response body; {@code generation} is unique to this load and
+     * {@code gzip} is null below the compression threshold or with
+     * compression off.
+     */
+    public record Body(long generation, long outsideSeq, byte[] json, byte[] gzip) {
+        int weight() {
+            return ENTRY_OVERHEAD + json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    private final boolean enabled;
+    private final int gzipMinBytes;
+    private final Cache<TaskQuery, Body> bodies;
+    private final AtomicLong generations = new AtomicLong();
+    // bumped before each invalidation pass, so a load that raced a change can tell
+    private final AtomicLong changes = new AtomicLong();
+
+    public TaskListCache(MeterRegistry registry,
+                         @Value("${trezello.listCache.enabled:true}") boolean enabled,
+                         @Value("${trezello.listCache.maxBytes:67108864}") long maxBytes,
+                         @Value("${trezello.listCache.gzipMinBytes:1024}") int gzipMinBytes) {
+        this.enabled = enabled;
+        this.gzipMinBytes = gzipMinBytes;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((TaskQuery q, Body b) -> b.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, bodies, "taskLists");
+        Gauge.builder("trezello.listcache.bytes", bodies,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes").register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached body for {@code q}, else {@code serialize} run outside the
+     * cache's lock. A body cached before {@code outsideSeq} moved is a miss.
+     * A body loaded while a task changed is returned but not kept, since it
+     * may predate the change.
+     */
+    public Body get(TaskQuery q, long outsideSeq, Supplier<byte[]> serialize) {
+        if (!enabled) return encode(outsideSeq, serialize.get());
+        Body cached = bodies.getIfPresent(q);
+        if (cached != null && cached.outsideSeq() == outsideSeq) return cached;
+        long seen = changes.get();
+        Body loaded = encode(outsideSeq, serialize.get());
+        bodies.put(q, loaded);
+        // a change after this check finds the entry in its own pass
+        if (changes.get() != seen) bodies.asMap().remove(q, loaded);
+        return loaded;
+    }
+
+    /** One pass over the cached queries; there is one entry per distinct filter, not per task. */
+    @Override public void onTaskChange(TaskChange c) {
+        if (!enabled) return;
+        changes.incrementAndGet();
+        bodies.asMap().keySet().removeIf(q ->
+                (c.before() != null && q.matches(c.before())) || (c.after() != null && q.matches(c.after())));
+    }
+
+    private Body encode(long outsideSeq, byte[] json) {
+        long generation = generations.incrementAndGet();
+        if (gzipMinBytes < 0 || json.length < gzipMinBytes) return new Body(generation, outsideSeq, json, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new Body(generation, outsideSeq, json, out.toByteArray());
+    }
+}
@@ -0,0 +1,235 @@
+package com.mscs632.trezello.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mscs632.trezello.exception.BadRequestException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.TaskStore;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over task titles and descriptions, built from
+ * the store at startup and kept current from task change events. Terms are
+ * also kept in a sorted set so every query word matches as a prefix; hits are
+ * ranked by tf-idf, with title words and whole-word matches weighted higher.
+ * Results are re-read from the store, so a stale entry can never surface a
+ * deleted task or one the caller may no longer see; hits are checked in rank
+ * order until {@code limit} of them pass, so skipped ones do not shorten the page.
+ *
+ * <p>Changes to one task can be reported out of order. Each document keeps the
+ * position of the change that wrote it, ordered as in {@link TaskChangeFeed}, and
+ * a deleted task leaves a tombstone with its delete position for a while, so a
+ * late update of an older version neither replaces a newer one nor brings a
+ * deleted task back.
+ */
+@Component
+public class TaskSearchIndex implements TaskChangeListener {
+    public static final int MAX_RESULTS = 100;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int TITLE_WEIGHT = 3;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(10);
+
+    private record Doc(long position, String assigneeId, Map<String, Integer> terms) {}
+
+    private final TaskStore store;
+    private final ConcurrentHashMap<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> vocabulary = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Doc> docs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> byAssignee = new ConcurrentHashMap<>();
+    private final Cache<String, Long> tombstones = Caffeine.newBuilder().expireAfterWrite(TOMBSTONE_TTL).build();
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+
+    public TaskSearchIndex(TaskStore store) {
+        this.store = store;
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+        for (Task t : store.findAll()) index(t, 2L * t.getVersion());
+    }
+
+    @Override public void onTaskChange(TaskChange c) {
+        if (c.after() == null) remove(c.taskId(), 2L * c.before().getVersion() + 1);
+        else index(c.after(), 2L * c.after().getVersion());
+    }
+
+    /** Best-ranked tasks the caller may see that contain every word of {@code q}, as a word or a word prefix. */
+    public List<Task> search(String q, int limit, String actorId, UserRole role) {
+        if (limit < 1 || limit > MAX_RESULTS)
+            throw new BadRequestException("limit must be between 1 and " + MAX_RESULTS);
+        List<String> words = tokenize(q);
+        if (words.isEmpty()) throw new BadRequestException("q must contain a word");
+
+        double n = Math.max(docs.size(), 1);
+        List<Word> plan = new ArrayList<>();
+        for (String w : new LinkedHashSet<>(words)) plan.add(expand(w, n));
+        plan.sort(Comparator.comparingLong(Word::df));
+
+        // start from the smaller of the rarest word's postings and (for USER) the caller's own tasks,
+        // then probe the remaining candidates instead of scoring every task that has a common word
+        Map<String, Double> scores;
+        int next = 0;
+        Set<String> own = role == UserRole.ADMIN ? null : byAssignee.getOrDefault(actorId, Set.of());
+        if (own != null && own.size() < plan.get(0).df()) {
+            scores = new HashMap<>();
+            for (String id : own) scores.put(id, 0.0);
+        } else {
+            scores = collect(plan.get(next++), own);
+        }
+        for (; next < plan.size() && !scores.isEmpty(); next++) {
+            Word w = plan.get(next);
+            if ((long) scores.size() * w.postings().size() <= w.df()) probe(scores, w);
+            else intersect(scores, collect(w, own));
+        }
+
+        // heapify once, then pop best-first until enough hits survive the store check
+        record Hit(String id, double score) implements Comparable<Hit> {
+            @Override public int compareTo(Hit o) { return Double.compare(o.score, score); }
+        }
+        List<Hit> hits = new ArrayList<>(scores.size());
+        for (Map.Entry<String, Double> e : scores.entrySet()) hits.add(new Hit(e.getKey(), e.getValue()));
+        PriorityQueue<Hit> ranked = new PriorityQueue<>(hits);
+
+        List<Task> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        while (result.size() < limit && !ranked.isEmpty()) {
+            store.findById(ranked.poll().id())
+                    .filter(t -> role == UserRole.ADMIN || Objects.equals(actorId, t.getAssigneeId()))
+                    .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /** The postings of every term starting with {@code word}, each with its idf and prefix weight. */
+    private record Word(List<Map<String, Integer>> postings, double[] factors, long df) {}
+
+    private Word expand(String word, double n) {
+        List<Map<String, Integer>> postingsOf = new ArrayList<>();
+        List<Double> factors = new ArrayList<>();
+        long df = 0;
+        for (String term : vocabulary.subSet(word, word + Character.MAX_VALUE)) {
+            Map<String, Integer> ids = postings.get(term);
+            if (ids == null) continue;
+            postingsOf.add(ids);
+            factors.add(Math.log(1 + n / Math.max(ids.size(), 1)) * (term.equals(word) ? 1 : PREFIX_WEIGHT));
+            df += ids.size();
+        }
+        return new Word(postingsOf, factors.stream().mapToDouble(Double::doubleValue).toArray(), df);
+    }
+
+    /** Scores every task containing the word, limited to {@code visible} when given. */
+    private static Map<String, Double> collect(Word w, Set<String> visible) {
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < w.postings().size(); i++) {
+            double factor = w.factors()[i];
+            for (Map.Entry<String, Integer> d : w.postings().get(i).entrySet()) {
+                if (visible != null && !visible.contains(d.getKey())) continue;
+                scores.merge(d.getKey(), d.getValue() * factor, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /** Adds the word's score to each candidate and drops candidates without it. */
+    private static void probe(Map<String, Double> scores, Word w) {
+        for (Iterator<Map.Entry<String, Double>> it = scores.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Double> e = it.next();
+            double best = 0;
+            for (int i = 0; i < w.postings().size(); i++) {
+                Integer count = w.postings().get(i).get(e.getKey());
+                if (count != null) best = Math.max(best, count * w.factors()[i]);
+            }
+            if (best == 0) it.remove();
+            else e.setValue(e.getValue() + best);
+        }
+    }
+
+    private static void intersect(Map<String, Double> scores, Map<String, Double> word) {
+        scores.keySet().retainAll(word.keySet());
+        for (Map.Entry<String, Double> e : scores.entrySet()) e.setValue(e.getValue() + word.get(e.getKey()));
+    }
+
+    private void index(Task t, long position) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String w : tokenize(t.getTitle())) terms.merge(w, TITLE_WEIGHT, Integer::sum);
+        for (String w : tokenize(t.getDescription())) terms.merge(w, 1, Integer::sum);
+
+        ReentrantLock stripe = stripeFor(t.getId());
+        stripe.lock();
+        try {
+            Doc prev = docs.get(t.getId());
+            // listeners can see two writes to one task out of order; keep the newer
+            if (prev != null && prev.position() > position) return;
+            Long deleted = tombstones.getIfPresent(t.getId());
+            if (deleted != null && deleted >= position) return;
+            if (prev != null) unpost(t.getId(), prev);
+            docs.put(t.getId(), new Doc(position, t.getAssigneeId(), terms));
+            if (t.getAssigneeId() != null) byAssignee.compute(t.getAssigneeId(), (k, ids) -> {
+                if (ids == null) ids = ConcurrentHashMap.newKeySet();
+                ids.add(t.getId());
+                return ids;
+            });
+            for (Map.Entry<String, Integer> e : terms.entrySet()) post(e.getKey(), t.getId(), e.getValue());
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void remove(String id, long position) {
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        try {
+            Doc prev = docs.get(id);
+            if (prev != null && prev.position() > position) return;
+            tombstones.asMap().merge(id, position, Math::max);
+            if (prev != null) {
+                docs.remove(id);
+                unpost(id, prev);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // posting and vocabulary changes for a term happen inside compute, so an emptied
+    // posting is never dropped while another task is being added to it
+    private void post(String term, String id, int count) {
+        postings.compute(term, (k, ids) -> {
+            if (ids == null) {
+                ids = new ConcurrentHashMap<>();
+                vocabulary.add(term);
+            }
+            ids.put(id, count);
+            return ids;
+        });
+    }
+
+    private void unpost(String id, Doc doc) {
+        if (doc.assigneeId() != null)
+            byAssignee.computeIfPresent(doc.assigneeId(), (k, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+        for (String term : doc.terms().keySet()) {
+            postings.computeIfPresent(term, (k, ids) -> {
+                if (ids.remove(id) == null || !ids.isEmpty()) return ids;
+                vocabulary.remove(term);
+                return null;
+            });
+        }
+    }
+
+    private ReentrantLock stripeFor(String id) {
+        return stripes[(id.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> words = new ArrayList<>();
+        for (String w : NON_WORD.split(text.toLowerCase(Locale.ROOT))) if (!w.isEmpty()) words.add(w);
+        return words;
+    }
+}
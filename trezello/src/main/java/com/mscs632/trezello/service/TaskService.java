@@ -3,33 +3,261 @@ package com.mscs632.trezello.service;
 import com.mscs632.trezello.dto.*;
 import com.mscs632.trezello.exception.*;
 import com.mscs632.trezello.model.*;
+import com.mscs632.trezello.store.TaskQuery;
 import com.mscs632.trezello.store.TaskStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 @Service
 public class TaskService {
     private final TaskStore store;
-    public TaskService(TaskStore store) { this.store = store; }
+    private final List<TaskChangeListener> listeners;
+    private final Timer listTimer, pageTimer, streamTimer, createTimer, updateTimer,
+            completeTimer, deleteTimer, batchTimer;
+    private final Counter conflicts;
+
+    public TaskService(TaskStore store, List<TaskChangeListener> listeners, MeterRegistry registry) {
+        this.store = store;
+        this.listeners = listeners;
+        this.listTimer = opTimer(registry, "list");
+        this.pageTimer = opTimer(registry, "page");
+        this.streamTimer = opTimer(registry, "stream");
+        this.createTimer = opTimer(registry, "create");
+        this.updateTimer = opTimer(registry, "update");
+        this.completeTimer = opTimer(registry, "complete");
+        this.deleteTimer = opTimer(registry, "delete");
+        this.batchTimer = opTimer(registry, "batch");
+        this.conflicts = Counter.builder("trezello.tasks.conflicts").register(registry);
+    }
+
+    private static Timer opTimer(MeterRegistry registry, String op) {
+        return Timer.builder("trezello.tasks.op").tag("op", op).register(registry);
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, NANOSECONDS);
+    }
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    /** Store-wide change sequence; equal values mean no task changed in between. */
+    public long changeSeq() {
+        return store.changeSeq();
+    }
+
+    /** See {@link TaskStore#outsideChangeSeq()}. */
+    public long outsideChangeSeq() {
+        return store.outsideChangeSeq();
+    }
 
     public List<Task> list(String status, String category, String assigneeId,
                            String actorId, UserRole role) {
+        long start = System.nanoTime();
+        try {
+            return query(status, category, assigneeId, actorId, role)
+                    .collect(Collectors.toList());
+        } finally {
+            record(listTimer, start);
+        }
+    }
 
-        String effectiveAssignee = (role == UserRole.USER) ? actorId : assigneeId;
+    /**
+     * One page of the filtered tasks ordered by (createdAt, id). Only the page
+     * being built is held in memory, not the whole result set.
+     */
+    public TaskPage page(String status, String category, String assigneeId,
+                         String actorId, UserRole role, int limit, String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        long start = System.nanoTime();
+        try {
+            return page(query(status, category, assigneeId, actorId, role), limit, cursor);
+        } finally {
+            record(pageTimer, start);
+        }
+    }
+
+    private static TaskPage page(Stream<Task> matches, int limit, String cursor) {
+        TaskCursor after = cursor == null ? null : TaskCursor.decode(cursor);
 
-        return store.findAll().stream()
-                .filter(t -> status == null || t.getStatus().name().equalsIgnoreCase(status))
-                .filter(t -> category == null || Objects.equals(t.getCategory(), category))
-                .filter(t -> effectiveAssignee == null || Objects.equals(t.getAssigneeId(), effectiveAssignee))
-                .collect(Collectors.toList());
+        // keep the limit+1 smallest keys; the extra one tells us whether another page exists
+        record Keyed(TaskCursor key, Task task) {}
+        PriorityQueue<Keyed> top = new PriorityQueue<>(limit + 1, Comparator.comparing(Keyed::key).reversed());
+        matches.forEach(t -> {
+            TaskCursor key = TaskCursor.of(t);
+            if (after != null && key.compareTo(after) <= 0) return;
+            if (top.size() <= limit) top.add(new Keyed(key, t));
+            else if (key.compareTo(top.peek().key()) < 0) { top.poll(); top.add(new Keyed(key, t)); }
+        });
+
+        List<Keyed> sorted = new ArrayList<>(top);
+        sorted.sort(Comparator.comparing(Keyed::key));
+        boolean more = sorted.size() > limit;
+        if (more) sorted = sorted.subList(0, limit);
+        String next = more ? sorted.get(limit - 1).key().encode() : null;
+        return new TaskPage(sorted.stream().map(Keyed::task).toList(), next);
+    }
+
+    /** Hands each matching task to {@code sink} as it is read, without collecting them. */
+    public void forEach(String status, String category, String assigneeId,
+                        String actorId, UserRole role, Consumer<Task> sink) {
+        long start = System.nanoTime();
+        try {
+            query(status, category, assigneeId, actorId, role).forEach(sink);
+        } finally {
+            record(streamTimer, start);
+        }
+    }
+
+    private Stream<Task> query(String status, String category, String assigneeId,
+                               String actorId, UserRole role) {
+        TaskQuery q = effectiveQuery(status, category, assigneeId, actorId, role);
+        return q == null ? Stream.empty() : store.find(q);
+    }
+
+    /**
+     * The store query a list request runs: USER callers are limited to their
+     * own tasks whatever assigneeId says. Null for a status no task can have.
+     */
+    public static TaskQuery effectiveQuery(String status, String category, String assigneeId,
+                                           String actorId, UserRole role) {
+        String effectiveAssignee = (role == UserRole.USER) ? actorId : assigneeId;
+        TaskStatus st = null;
+        if (status != null) {
+            Optional<TaskStatus> parsed = Arrays.stream(TaskStatus.values())
+                    .filter(s -> s.name().equalsIgnoreCase(status))
+                    .findFirst();
+            if (parsed.isEmpty()) return null;
+            st = parsed.get();
+        }
+        return new TaskQuery(st, category, effectiveAssignee);
     }
 
 
     public Task create(CreateTaskRequest req, String actorId, UserRole role) {
+        long start = System.nanoTime();
+        try {
+            return create(store, req, actorId, role, this::publish);
+        } finally {
+            record(createTimer, start);
+        }
+    }
+
+    public Task update(String id, UpdateTaskRequest req, String actorId, UserRole role) {
+        long start = System.nanoTime();
+        try {
+            return update(store, id, req, actorId, role, this::publish);
+        } finally {
+            record(updateTimer, start);
+        }
+    }
+
+    public Task complete(String id, int version, String actorId, UserRole role) {
+        long start = System.nanoTime();
+        try {
+            return complete(store, id, version, actorId, role, this::publish);
+        } finally {
+            record(completeTimer, start);
+        }
+    }
+
+    public void delete(String id, String actorId, UserRole role) {
+        long start = System.nanoTime();
+        try {
+            delete(store, id, actorId, role, this::publish);
+        } finally {
+            record(deleteTimer, start);
+        }
+    }
+
+    /**
+     * Applies every operation inside one {@link TaskStore#batch} so the store
+     * takes its lock and makes the result durable once. Each entry still gets
+     * the usual permission and version checks and reports its own outcome.
+     * Listeners hear about the changes only once the batch has committed, so
+     * a batch that fails or rolls back leaves no trace in them.
+     */
+    public List<BatchItemResult> batch(List<BatchOperation> ops, String actorId, UserRole role) {
+        if (ops == null || ops.isEmpty()) throw new BadRequestException("operations required");
+        if (ops.size() > MAX_BATCH_SIZE) throw new BadRequestException("at most " + MAX_BATCH_SIZE + " operations per batch");
+        long start = System.nanoTime();
+        try {
+            return applyBatch(ops, actorId, role);
+        } finally {
+            record(batchTimer, start);
+        }
+    }
+
+    private List<BatchItemResult> applyBatch(List<BatchOperation> ops, String actorId, UserRole role) {
+        List<TaskChange> committed = new ArrayList<>();
+        List<BatchItemResult> results = store.batch(tx -> {
+            List<BatchItemResult> out = new ArrayList<>(ops.size());
+            for (int i = 0; i < ops.size(); i++) {
+                BatchOperation op = ops.get(i);
+                try {
+                    Task t = apply(tx, op, actorId, role, committed::add);
+                    out.add(new BatchItemResult(i, 200, t == null ? op.id() : t.getId(), t, null));
+                } catch (BadRequestException e) {
+                    out.add(new BatchItemResult(i, 400, op.id(), null, e.getMessage()));
+                } catch (ForbiddenException e) {
+                    out.add(new BatchItemResult(i, 403, op.id(), null, e.getMessage()));
+                } catch (NotFoundException e) {
+                    out.add(new BatchItemResult(i, 404, op.id(), null, e.getMessage()));
+                } catch (ConflictException e) {
+                    out.add(new BatchItemResult(i, 409, op.id(), null, e.getMessage()));
+                }
+            }
+            return out;
+        });
+        committed.forEach(this::publish);
+        return results;
+    }
+
+    private Task apply(TaskStore tx, BatchOperation op, String actorId, UserRole role, Consumer<TaskChange> changes) {
+        if (op.op() == null) throw new BadRequestException("op required");
+        if (op.op() != BatchOperation.Op.CREATE && op.id() == null) throw new BadRequestException("id required");
+        if ((op.op() == BatchOperation.Op.UPDATE || op.op() == BatchOperation.Op.COMPLETE) && op.version() == null)
+            throw new BadRequestException("version required");
+        return switch (op.op()) {
+            case CREATE -> {
+                requireText(op.title(), "title");
+                requireText(op.category(), "category");
+                requireText(op.assigneeId(), "assigneeId");
+                yield create(tx, new CreateTaskRequest(op.title(), op.description(), op.category(), op.assigneeId()), actorId, role, changes);
+            }
+            case UPDATE -> {
+                requireText(op.title(), "title");
+                requireText(op.category(), "category");
+                yield update(tx, op.id(), new UpdateTaskRequest(op.title(), op.description(), op.category(),
+                        op.assigneeId(), op.status(), op.version()), actorId, role, changes);
+            }
+            case COMPLETE -> complete(tx, op.id(), op.version(), actorId, role, changes);
+            case DELETE -> {
+                delete(tx, op.id(), actorId, role, changes);
+                yield null;
+            }
+        };
+    }
+
+    private static void requireText(String value, String field) {
+        if (value == null || value.isBlank()) throw new BadRequestException(field + ": must not be blank");
+    }
+
+    private Task create(TaskStore store, CreateTaskRequest req, String actorId, UserRole role,
+                        Consumer<TaskChange> changes) {
         if (role == UserRole.USER && !Objects.equals(actorId, req.assigneeId()))
             throw new ForbiddenException("Users can only create tasks for themselves");
         Task t = new Task();
@@ -42,51 +270,79 @@ public class TaskService {
         t.setVersion(1);
         String now = Instant.now().toString();
         t.setCreatedAt(now); t.setUpdatedAt(now);
-        return store.upsert(t);
+        return changed(changes, TaskChange.Type.CREATED, null, store.upsert(t));
     }
 
-    public Task update(String id, UpdateTaskRequest req, String actorId, UserRole role) {
+    private Task update(TaskStore store, String id, UpdateTaskRequest req, String actorId, UserRole role,
+                        Consumer<TaskChange> changes) {
         Task cur = store.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
         if (role == UserRole.USER && !actorId.equals(cur.getAssigneeId()))
             throw new ForbiddenException("Users can only modify their tasks");
-        if (cur.getVersion() != req.version())
-            throw new ConflictException("Version mismatch. Reload and retry.");
+        if (cur.getVersion() != req.version()) throw conflict();
 
-        cur.setTitle(req.title());
-        cur.setDescription(req.description());
-        cur.setCategory(req.category());
+        // every write bumps the version, so if the CAS below succeeds the
+        // assignee checked above is still the current one
+        Task updated = compareAndUpdate(store, id, req.version(), t -> {
+            t.setTitle(req.title());
+            t.setDescription(req.description());
+            t.setCategory(req.category());
 
-        if (role == UserRole.ADMIN) {
-            if (req.assigneeId() != null && !req.assigneeId().isBlank()) {
-                cur.setAssigneeId(req.assigneeId());
+            if (role == UserRole.ADMIN) {
+                if (req.assigneeId() != null && !req.assigneeId().isBlank()) {
+                    t.setAssigneeId(req.assigneeId());
+                }
             }
-        } else {
-            cur.setAssigneeId(cur.getAssigneeId());
-        }
-        if (req.status() != null) {
-            cur.setStatus(req.status());
-        }
-        cur.setVersion(cur.getVersion() + 1);
-        cur.setUpdatedAt(Instant.now().toString());
-        return store.upsert(cur);
+            if (req.status() != null) {
+                t.setStatus(req.status());
+            }
+            t.setUpdatedAt(Instant.now().toString());
+            return t;
+        });
+        return changed(changes, TaskChange.Type.UPDATED, cur, updated);
     }
 
 
-    public Task complete(String id, int version, String actorId, UserRole role) {
+    private Task complete(TaskStore store, String id, int version, String actorId, UserRole role,
+                          Consumer<TaskChange> changes) {
         Task cur = store.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
         if (role == UserRole.USER && !Objects.equals(actorId, cur.getAssigneeId()))
             throw new ForbiddenException("Users can only modify their tasks");
-        if (cur.getVersion() != version)
-            throw new ConflictException("Version mismatch. Reload and retry.");
-        cur.setStatus(TaskStatus.COMPLETED);
-        cur.setVersion(cur.getVersion()+1);
-        cur.setUpdatedAt(Instant.now().toString());
-        return store.upsert(cur);
+        if (cur.getVersion() != version) throw conflict();
+        Task updated = compareAndUpdate(store, id, version, t -> {
+            t.setStatus(TaskStatus.COMPLETED);
+            t.setUpdatedAt(Instant.now().toString());
+            return t;
+        });
+        return changed(changes, TaskChange.Type.COMPLETED, cur, updated);
     }
 
-    public void delete(String id, String actorId, UserRole role) {
+    private ConflictException conflict() {
+        conflicts.increment();
+        return new ConflictException("Version mismatch. Reload and retry.");
+    }
+
+    private Task compareAndUpdate(TaskStore store, String id, int version, UnaryOperator<Task> mutator) {
+        try {
+            return store.compareAndUpdate(id, version, mutator);
+        } catch (ConflictException e) {
+            conflicts.increment();
+            throw e;
+        }
+    }
+
+    private void delete(TaskStore store, String id, String actorId, UserRole role, Consumer<TaskChange> changes) {
         if (role != UserRole.ADMIN) throw new ForbiddenException("Only admins can delete");
-        store.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
-        store.deleteById(id);
+        // the store hands back what it removed, so concurrent deletes report the task once and in its final state
+        Task removed = store.deleteById(id).orElseThrow(() -> new NotFoundException("Task not found"));
+        changed(changes, TaskChange.Type.DELETED, removed, null);
+    }
+
+    private static Task changed(Consumer<TaskChange> changes, TaskChange.Type type, Task before, Task after) {
+        changes.accept(new TaskChange(type, before, after));
+        return after;
+    }
+
+    private void publish(TaskChange change) {
+        for (TaskChangeListener l : listeners) l.onTaskChange(change);
     }
 }
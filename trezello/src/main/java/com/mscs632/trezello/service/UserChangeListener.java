@@ -0,0 +1,8 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.model.User;
+
+/** Notified by {@link UserService} and {@link AuthService} after a user has been saved. */
+public interface UserChangeListener {
+    void onUserSaved(User user);
+}
@@ -14,7 +14,12 @@ import java.util.UUID;
 @Service
 public class UserService {
     private final UserStore store;
-    public UserService(UserStore store) { this.store = store; }
+    private final List<UserChangeListener> listeners;
+
+    public UserService(UserStore store, List<UserChangeListener> listeners) {
+        this.store = store;
+        this.listeners = listeners;
+    }
 
     public User create(CreateUserRequest req) {
         if (req.role() == null) throw new BadRequestException("role required");
@@ -22,7 +27,9 @@ public class UserService {
         u.setId(UUID.randomUUID().toString());
         u.setUsername(req.username());
         u.setRole(String.valueOf(req.role()));
-        return store.save(u);
+        User saved = store.save(u);
+        for (UserChangeListener l : listeners) l.onUserSaved(saved);
+        return saved;
     }
 
     public List<User> list(String actorId, UserRole role) {
@@ -0,0 +1,78 @@
+package com.mscs632.trezello.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mscs632.trezello.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded id lookup cache in front of the backing {@link UserStore}. Every
+ * request resolves the caller's role by id, so this is the hot path.
+ * Only users that exist are cached: a miss always asks the backend, so a
+ * user added behind the app's back is found at once and lookups of random
+ * ids cannot push real users out. Hits, misses and evictions are
+ * published as {@code cache.*} metrics.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "trezello.userCache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingUserStore implements UserStore {
+    private final UserStore delegate;
+    private final Cache<String, User> byId;
+
+    public CachingUserStore(@Qualifier("userBackend") UserStore delegate, MeterRegistry registry,
+                            @Value("${trezello.userCache.maxSize:10000}") long maxSize,
+                            @Value("${trezello.userCache.ttlSeconds:300}") long ttlSeconds) {
+        this.delegate = delegate;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, byId, "users");
+    }
+
+    @Override public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    /**
+     * Misses are loaded outside the cache's map lock: the backend may read
+     * users.json, and blocking inside that monitor would pin a virtual thread
+     * to its carrier. putIfAbsent keeps a value a concurrent save put first.
+     */
+    @Override public Optional<User> findById(String id) {
+        User cached = byId.getIfPresent(id);
+        if (cached != null) return Optional.of(cached);
+        Optional<User> loaded = delegate.findById(id);
+        if (loaded.isEmpty()) return loaded;
+        User raced = byId.asMap().putIfAbsent(id, loaded.get());
+        return raced != null ? Optional.of(raced) : loaded;
+    }
+
+    @Override public User save(User u) {
+        User saved = delegate.save(u);
+        byId.put(saved.getId(), saved);
+        return saved;
+    }
+
+    @Override public Optional<User> findByUsername(String username) {
+        return delegate.findByUsername(username);
+    }
+
+    @Override public boolean saveIfAbsent(User u) {
+        boolean saved = delegate.saveIfAbsent(u);
+        if (saved) byId.put(u.getId(), u);
+        return saved;
+    }
+}
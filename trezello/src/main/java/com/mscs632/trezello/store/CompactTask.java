@@ -0,0 +1,91 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * How {@link InMemoryTaskStore} holds a task: timestamps as epoch nanoseconds
+ * instead of ISO strings, category and assignee as pooled strings, status as
+ * its ordinal. {@link #toTask} returns exactly the Task it was made from; a
+ * timestamp that would not print back identically is kept as text instead.
+ */
+final class CompactTask {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NANOS = 1_000_000_000L;
+
+    final long order;
+    final String id;
+    final int version;
+    private final String title;
+    private final String description;
+    private final String category;
+    private final String assigneeId;
+    private final byte status;
+    private final long createdAt;
+    private final long updatedAt;
+    // only set for timestamps that are not in Instant.toString() form
+    private final String createdText;
+    private final String updatedText;
+
+    CompactTask(long order, Task t, StringPool pool) {
+        this.order = order;
+        this.id = t.getId();
+        this.version = t.getVersion();
+        this.title = t.getTitle();
+        this.description = t.getDescription();
+        this.category = pool.canonical(t.getCategory());
+        this.assigneeId = pool.canonical(t.getAssigneeId());
+        this.status = t.getStatus() == null ? -1 : (byte) t.getStatus().ordinal();
+        this.createdAt = encode(t.getCreatedAt());
+        this.createdText = createdAt == NO_TIME ? t.getCreatedAt() : null;
+        this.updatedAt = encode(t.getUpdatedAt());
+        this.updatedText = updatedAt == NO_TIME ? t.getUpdatedAt() : null;
+    }
+
+    String category() { return category; }
+
+    String assigneeId() { return assigneeId; }
+
+    TaskStatus status() { return status < 0 ? null : STATUSES[status]; }
+
+    boolean matches(TaskQuery q) {
+        return (q.status() == null || status() == q.status())
+                && (q.category() == null || Objects.equals(category, q.category()))
+                && (q.assigneeId() == null || Objects.equals(assigneeId, q.assigneeId()));
+    }
+
+    Task toTask() {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle(title);
+        t.setDescription(description);
+        t.setStatus(status());
+        t.setCategory(category);
+        t.setAssigneeId(assigneeId);
+        t.setVersion(version);
+        t.setCreatedAt(createdText != null ? createdText : decode(createdAt));
+        t.setUpdatedAt(updatedText != null ? updatedText : decode(updatedAt));
+        return t;
+    }
+
+    private static long encode(String iso) {
+        if (iso == null) return NO_TIME;
+        try {
+            Instant i = Instant.parse(iso);
+            if (!i.toString().equals(iso)) return NO_TIME;
+            return Math.addExact(Math.multiplyExact(i.getEpochSecond(), NANOS), i.getNano());
+        } catch (DateTimeException | ArithmeticException e) {
+            return NO_TIME;
+        }
+    }
+
+    private static String decode(long nanos) {
+        if (nanos == NO_TIME) return null;
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS), Math.floorMod(nanos, NANOS)).toString();
+    }
+}
@@ -0,0 +1,286 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Task store that loads its {@link TaskPersistence} once and serves everything
+ * from memory. Changes are made durable either on every mutation (SYNC) or by
+ * a background flusher every {@code flushIntervalMs} (ASYNC, write-behind).
+ * Secondary indexes on assignee, status and category are maintained with
+ * each write so {@link #find} only visits the smallest matching posting set.
+ * Tasks are held as {@link CompactTask}s and turned back into {@link Task}s
+ * as they are read.
+ *
+ * <p>Writers lock only the stripe owning the task id, so writes to unrelated
+ * tasks run in parallel. {@link #batch} takes the exclusive side of
+ * {@code batchLock} to keep every single-task writer out for its duration.
+ * It remembers each touched task as it was before the batch and puts them
+ * all back if the batch or its sync fails, so nothing of a failed batch
+ * stays visible.
+ */
+public class InMemoryTaskStore implements TaskStore, AutoCloseable {
+    public enum Durability { SYNC, ASYNC }
+
+    private final TaskPersistence persistence;
+    private final Durability durability;
+    private final ConcurrentHashMap<String, CompactTask> tasks = new ConcurrentHashMap<>();
+    private final StringPool strings = new StringPool();
+    private final ConcurrentHashMap<String, Set<String>> byAssignee = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TaskStatus, Set<String>> byStatus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> byCategory = new ConcurrentHashMap<>();
+    private final AtomicLong order = new AtomicLong();
+    private final AtomicLong changeSeq = new AtomicLong();
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+    private final ScheduledExecutorService background;
+    // tasks as they were before the running batch touched them (null: absent); only the batch thread uses it
+    private Map<String, CompactTask> undo;
+
+    public InMemoryTaskStore(TaskPersistence persistence, Durability durability,
+                             long flushIntervalMs, long compactIntervalMs) {
+        this.persistence = persistence;
+        this.durability = durability;
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+        for (Task t : persistence.load()) {
+            CompactTask c = new CompactTask(order.incrementAndGet(), t, strings);
+            tasks.put(c.id, c);
+            index(c);
+        }
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-store-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        if (durability == Durability.ASYNC)
+            background.scheduleWithFixedDelay(() -> quietly(this::flush), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (compactIntervalMs > 0)
+            background.scheduleWithFixedDelay(() -> quietly(this::compact), compactIntervalMs, compactIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override public List<Task> findAll() {
+        return inOrder(tasks.values().stream())
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+    }
+
+    @Override public Optional<Task> findById(String id) {
+        CompactTask c = tasks.get(id);
+        return c == null ? Optional.empty() : Optional.of(c.toTask());
+    }
+
+    @Override public Stream<Task> find(TaskQuery q) {
+        List<Set<String>> postings = new ArrayList<>(3);
+        if (q.assigneeId() != null) postings.add(byAssignee.getOrDefault(q.assigneeId(), Set.of()));
+        if (q.status() != null) postings.add(byStatus.getOrDefault(q.status(), Set.of()));
+        if (q.category() != null) postings.add(byCategory.getOrDefault(q.category(), Set.of()));
+        if (postings.isEmpty()) return inOrder(tasks.values().stream());
+
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<Set<String>> rest = postings.subList(1, postings.size());
+        // a concurrent write may move an id between postings, so re-check the task itself
+        return inOrder(postings.get(0).stream()
+                .filter(id -> rest.stream().allMatch(p -> p.contains(id)))
+                .map(tasks::get)
+                .filter(c -> c != null && c.matches(q)));
+    }
+
+    /** Sorts references only; each task is expanded lazily as the stream is consumed. */
+    private static Stream<Task> inOrder(Stream<CompactTask> tasks) {
+        return tasks.sorted(Comparator.comparingLong((CompactTask c) -> c.order)).map(CompactTask::toTask);
+    }
+
+    @Override public Task upsert(Task t) {
+        ReentrantLock stripe = lockFor(t.getId());
+        try {
+            put(tasks.get(t.getId()), t);
+        } finally {
+            unlock(stripe);
+        }
+        afterWrite();
+        return t;
+    }
+
+    @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        Task updated;
+        ReentrantLock stripe = lockFor(id);
+        try {
+            CompactTask cur = tasks.get(id);
+            if (cur == null) throw new NotFoundException("Task not found");
+            if (cur.version != expectedVersion)
+                throw new ConflictException("Version mismatch. Reload and retry.");
+            updated = mutator.apply(cur.toTask());
+            updated.setVersion(expectedVersion + 1);
+            put(cur, updated);
+        } finally {
+            unlock(stripe);
+        }
+        afterWrite();
+        return updated;
+    }
+
+    @Override public Optional<Task> deleteById(String id) {
+        CompactTask prev;
+        ReentrantLock stripe = lockFor(id);
+        try {
+            prev = tasks.remove(id);
+            if (prev == null) return Optional.empty();
+            remember(id, prev);
+            unindex(prev);
+            persistence.deleted(id);
+            changeSeq.incrementAndGet();
+        } finally {
+            unlock(stripe);
+        }
+        afterWrite();
+        return Optional.of(prev.toTask());
+    }
+
+    @Override public long changeSeq() {
+        return changeSeq.get();
+    }
+
+    /**
+     * Holds every writer off for the whole batch and syncs once at the end
+     * (group commit). If {@code work} or the sync throws, the batch is rolled
+     * back before the lock is released.
+     */
+    @Override public <R> R batch(Function<TaskStore, R> work) {
+        return batch(work, true);
+    }
+
+    /** {@link #batch}, leaving the sync to the caller when {@code sync} is false. */
+    <R> R batch(Function<TaskStore, R> work, boolean sync) {
+        batchLock.writeLock().lock();
+        undo = new HashMap<>();
+        try {
+            R result = work.apply(this);
+            if (sync) syncIfDurable();
+            return result;
+        } catch (RuntimeException | Error e) {
+            rollback(e);
+            throw e;
+        } finally {
+            undo = null;
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    /** Syncs when every change has to be durable before it is answered. */
+    void syncIfDurable() {
+        if (durability == Durability.SYNC) flush();
+    }
+
+    /** Caller holds the batch lock exclusively. Puts back every task the batch touched. */
+    private void rollback(Throwable cause) {
+        undo.forEach((id, prev) -> {
+            CompactTask cur = tasks.get(id);
+            if (cur != null) unindex(cur);
+            if (prev == null) {
+                tasks.remove(id);
+            } else {
+                tasks.put(id, prev);
+                index(prev);
+            }
+        });
+        changeSeq.incrementAndGet();
+        // memory is whole again; the persistence may have failed already, so telling it comes last
+        try {
+            undo.forEach((id, prev) -> {
+                if (prev != null) persistence.upserted(prev.toTask());
+                else persistence.deleted(id);
+            });
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /** Caller holds the stripe for {@code id}. Keeps the first state a running batch saw. */
+    private void remember(String id, CompactTask prev) {
+        if (undo != null && !undo.containsKey(id)) undo.put(id, prev);
+    }
+
+    /** Caller holds the stripe for {@code t}'s id. */
+    private void put(CompactTask prev, Task t) {
+        remember(t.getId(), prev);
+        if (prev != null) unindex(prev);
+        CompactTask stored = new CompactTask(prev == null ? order.incrementAndGet() : prev.order, t, strings);
+        tasks.put(stored.id, stored);
+        index(stored);
+        persistence.upserted(t);
+        changeSeq.incrementAndGet();
+    }
+
+    private ReentrantLock lockFor(String id) {
+        batchLock.readLock().lock();
+        ReentrantLock stripe = stripes[(id.hashCode() & 0x7fffffff) % stripes.length];
+        stripe.lock();
+        return stripe;
+    }
+
+    private void unlock(ReentrantLock stripe) {
+        stripe.unlock();
+        batchLock.readLock().unlock();
+    }
+
+    private void afterWrite() {
+        // inside batch() the exclusive lock is still held here and the batch syncs once at the end
+        if (durability == Durability.SYNC && !batchLock.isWriteLockedByCurrentThread()) flush();
+    }
+
+    private void index(CompactTask c) {
+        add(byAssignee, c.assigneeId(), c.id);
+        add(byStatus, c.status(), c.id);
+        add(byCategory, c.category(), c.id);
+    }
+
+    private void unindex(CompactTask c) {
+        remove(byAssignee, c.assigneeId(), c.id);
+        remove(byStatus, c.status(), c.id);
+        remove(byCategory, c.category(), c.id);
+    }
+
+    // both sides run inside compute so an emptied set is never dropped while another id is being added to it
+    private static <K> void add(Map<K, Set<String>> index, K key, String id) {
+        if (key != null) index.compute(key, (k, ids) -> {
+            if (ids == null) ids = ConcurrentHashMap.newKeySet();
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<String>> index, K key, String id) {
+        if (key != null) index.computeIfPresent(key, (k, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+    }
+
+    /** Makes every change so far durable. */
+    public void flush() {
+        persistence.sync(this::findAll);
+    }
+
+    /** Lets the persistence fold its log into a fresh snapshot. */
+    public void compact() {
+        persistence.compact(this::findAll);
+    }
+
+    private static void quietly(Runnable r) {
+        try { r.run(); }
+        catch (RuntimeException e) { /* retried on the next tick */ }
+    }
+
+    @Override public void close() {
+        background.shutdown();
+        flush();
+        persistence.close();
+    }
+}
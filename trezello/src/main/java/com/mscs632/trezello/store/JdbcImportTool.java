@@ -0,0 +1,74 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copies users.json and the tasks (tasks.json with its log, or the shard
+ * files) into the JDBC store's database. Rows are merged by id, so running it
+ * again refreshes the database instead of duplicating. Run it with the app
+ * stopped:
+ * <pre>
+ * java -cp trezello.jar -Dloader.main=com.mscs632.trezello.store.JdbcImportTool \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher data [jdbcUrl]
+ * </pre>
+ */
+public final class JdbcImportTool {
+    private JdbcImportTool() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: JdbcImportTool <dataDir> [jdbcUrl]");
+            System.exit(2);
+        }
+        Path dataDir = Path.of(args[0]);
+        String url = args.length == 2 ? args[1] : JdbcStoreConfig.defaultUrl(dataDir);
+        try (HikariDataSource ds = JdbcStoreConfig.dataSource(url, 1)) {
+            JdbcStoreConfig.createSchema(ds);
+            int[] counts = importFiles(ds, new JsonStoreConfig().objectMapper(), StorageCodec.of("json"), dataDir);
+            System.out.println("Imported " + counts[0] + " users and " + counts[1] + " tasks into " + url);
+        }
+    }
+
+    /**
+     * Imports in one transaction and returns {users, tasks}. A user whose
+     * username is already taken by an earlier one is skipped, as the JSON
+     * store's username index would.
+     */
+    static int[] importFiles(DataSource ds, ObjectMapper om, StorageCodec codec, Path dataDir) throws IOException, SQLException {
+        Path usersFile = dataDir.resolve("users.json");
+        List<User> users = Files.exists(usersFile) ? codec.readUsers(Files.readAllBytes(usersFile)) : List.of();
+        List<Task> tasks = List.copyOf(ReshardTool.readAll(om, codec, dataDir, dataDir.resolve("shards")));
+
+        try (Connection c = ds.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                int imported = 0;
+                Set<String> usernames = new HashSet<>();
+                for (User u : users) {
+                    if (u.getUsername() == null || !usernames.add(UserStore.usernameKey(u.getUsername()))) continue;
+                    JdbcUserStore.merge(c, u);
+                    imported++;
+                }
+                for (Task t : tasks) JdbcTaskStore.upsert(c, t);
+                c.commit();
+                return new int[] {imported, tasks.size()};
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+
+import java.nio.file.Path;
+import java.sql.*;
+
+/**
+ * Connection pool and schema for {@code trezello.store.type=jdbc}: tasks and
+ * users in an embedded H2 database file (data/trezello.mv.db unless
+ * {@code trezello.jdbc.url} says otherwise). A database without tables is
+ * created and filled from tasks.json and users.json on first start, the same
+ * import {@link JdbcImportTool} runs offline.
+ */
+@Configuration
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "jdbc")
+public class JdbcStoreConfig {
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS tasks (
+                seq BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                id VARCHAR(64) PRIMARY KEY,
+                title VARCHAR,
+                description VARCHAR,
+                status VARCHAR(16),
+                category VARCHAR(255),
+                assignee_id VARCHAR(64),
+                version INT NOT NULL,
+                created_at VARCHAR(40),
+                updated_at VARCHAR(40))""",
+            "CREATE INDEX IF NOT EXISTS tasks_assignee ON tasks(assignee_id)",
+            "CREATE INDEX IF NOT EXISTS tasks_status ON tasks(status)",
+            "CREATE INDEX IF NOT EXISTS tasks_category ON tasks(category)",
+            "CREATE INDEX IF NOT EXISTS tasks_seq ON tasks(seq)",
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                seq BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                id VARCHAR(64) PRIMARY KEY,
+                username VARCHAR(255) NOT NULL,
+                username_key VARCHAR(255) NOT NULL UNIQUE,
+                role VARCHAR(16),
+                password_hash VARCHAR(100))""",
+    };
+
+    @Bean
+    public HikariDataSource taskDataSource(ObjectMapper om, StorageCodec codec, Path dataDir, MeterRegistry registry,
+                                           @Value("${trezello.jdbc.url:}") String url,
+                                           @Value("${trezello.jdbc.poolSize:10}") int poolSize) throws Exception {
+        HikariDataSource ds = dataSource(url.isBlank() ? defaultUrl(dataDir) : url, poolSize);
+        ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        if (createSchema(ds)) JdbcImportTool.importFiles(ds, om, codec, dataDir);
+        return ds;
+    }
+
+    static String defaultUrl(Path dataDir) {
+        return "jdbc:h2:file:" + dataDir.toAbsolutePath().resolve("trezello");
+    }
+
+    static HikariDataSource dataSource(String url, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(poolSize);
+        config.setPoolName("trezello");
+        return new HikariDataSource(config);
+    }
+
+    /** Creates missing tables and indexes; true if the tasks table did not exist yet. */
+    static boolean createSchema(javax.sql.DataSource ds) throws SQLException {
+        try (Connection c = ds.getConnection(); Statement st = c.createStatement()) {
+            boolean fresh;
+            try (ResultSet rs = c.getMetaData().getTables(null, null, "TASKS", null)) {
+                fresh = !rs.next();
+            }
+            for (String ddl : SCHEMA) st.execute(ddl);
+            return fresh;
+        }
+    }
+}
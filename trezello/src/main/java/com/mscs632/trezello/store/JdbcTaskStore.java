@@ -0,0 +1,221 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Tasks in the {@code tasks} table. Filters go to the assignee, status and
+ * category indexes; results keep insertion order. Version checks are an
+ * {@code UPDATE ... WHERE version = ?}, so concurrent writers need no lock
+ * here, and a batch is one transaction on one pooled connection.
+ */
+@Repository("taskBackend")
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "jdbc")
+public class JdbcTaskStore implements TaskStore {
+    private static final String COLUMNS = "id, title, description, status, category, assignee_id, version, created_at, updated_at";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM tasks";
+    private static final String MERGE = "MERGE INTO tasks (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE tasks SET title = ?, description = ?, status = ?, category = ?, assignee_id = ?,"
+            + " version = ?, created_at = ?, updated_at = ? WHERE id = ? AND version = ?";
+
+    interface Sql<T> {
+        T run(Connection c) throws SQLException;
+    }
+
+    private final DataSource ds;
+    private final AtomicLong changeSeq = new AtomicLong();
+
+    public JdbcTaskStore(DataSource ds) {
+        this.ds = ds;
+    }
+
+    private <T> T withConnection(Sql<T> work) {
+        try (Connection c = ds.getConnection()) {
+            return work.run(c);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override public List<Task> findAll() {
+        return withConnection(c -> select(c, new TaskQuery(null, null, null)));
+    }
+
+    @Override public Optional<Task> findById(String id) {
+        return withConnection(c -> findById(c, id));
+    }
+
+    @Override public Stream<Task> find(TaskQuery q) {
+        return withConnection(c -> select(c, q)).stream();
+    }
+
+    @Override public Task upsert(Task t) {
+        withConnection(c -> upsert(c, t));
+        changeSeq.incrementAndGet();
+        return t;
+    }
+
+    @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        Task updated = withConnection(c -> compareAndUpdate(c, id, expectedVersion, mutator));
+        changeSeq.incrementAndGet();
+        return updated;
+    }
+
+    @Override public Optional<Task> deleteById(String id) {
+        Optional<Task> removed = withConnection(c -> deleteById(c, id));
+        if (removed.isPresent()) changeSeq.incrementAndGet();
+        return removed;
+    }
+
+    @Override public long changeSeq() {
+        return changeSeq.get();
+    }
+
+    /** Runs the whole batch in one transaction; an exception rolls every write back. */
+    @Override public <R> R batch(Function<TaskStore, R> work) {
+        R result = withConnection(c -> {
+            c.setAutoCommit(false);
+            try {
+                R r = work.apply(new Tx(c));
+                c.commit();
+                return r;
+            } catch (RuntimeException | SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        });
+        changeSeq.incrementAndGet();
+        return result;
+    }
+
+    /** The batch view: the same statements on the batch's connection. */
+    private record Tx(Connection c) implements TaskStore {
+        private <T> T run(Sql<T> work) {
+            try {
+                return work.run(c);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override public List<Task> findAll() { return run(c -> select(c, new TaskQuery(null, null, null))); }
+
+        @Override public Optional<Task> findById(String id) { return run(c -> JdbcTaskStore.findById(c, id)); }
+
+        @Override public Stream<Task> find(TaskQuery q) { return run(c -> select(c, q)).stream(); }
+
+        @Override public Task upsert(Task t) { return run(c -> JdbcTaskStore.upsert(c, t)); }
+
+        @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+            return run(c -> JdbcTaskStore.compareAndUpdate(c, id, expectedVersion, mutator));
+        }
+
+        @Override public Optional<Task> deleteById(String id) { return run(c -> JdbcTaskStore.deleteById(c, id)); }
+
+        @Override public long changeSeq() { return 0; }
+    }
+
+    private static List<Task> select(Connection c, TaskQuery q) throws SQLException {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<String> args = new ArrayList<>();
+        if (q.assigneeId() != null) { sql.append(args.isEmpty() ? " WHERE" : " AND").append(" assignee_id = ?"); args.add(q.assigneeId()); }
+        if (q.status() != null) { sql.append(args.isEmpty() ? " WHERE" : " AND").append(" status = ?"); args.add(q.status().name()); }
+        if (q.category() != null) { sql.append(args.isEmpty() ? " WHERE" : " AND").append(" category = ?"); args.add(q.category()); }
+        sql.append(" ORDER BY seq");
+        try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            for (int i = 0; i < args.size(); i++) ps.setString(i + 1, args.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Task> tasks = new ArrayList<>();
+                while (rs.next()) tasks.add(task(rs));
+                return tasks;
+            }
+        }
+    }
+
+    private static Optional<Task> findById(Connection c, String id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(SELECT + " WHERE id = ?")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(task(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    static Task upsert(Connection c, Task t) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(MERGE)) {
+            ps.setString(1, t.getId());
+            ps.setString(2, t.getTitle());
+            ps.setString(3, t.getDescription());
+            ps.setString(4, t.getStatus() == null ? null : t.getStatus().name());
+            ps.setString(5, t.getCategory());
+            ps.setString(6, t.getAssigneeId());
+            ps.setInt(7, t.getVersion());
+            ps.setString(8, t.getCreatedAt());
+            ps.setString(9, t.getUpdatedAt());
+            ps.executeUpdate();
+        }
+        return t;
+    }
+
+    private static Task compareAndUpdate(Connection c, String id, int expectedVersion, UnaryOperator<Task> mutator) throws SQLException {
+        Task cur = findById(c, id).orElseThrow(() -> new NotFoundException("Task not found"));
+        if (cur.getVersion() != expectedVersion) throw new ConflictException("Version mismatch. Reload and retry.");
+        Task updated = mutator.apply(cur);
+        updated.setVersion(expectedVersion + 1);
+        try (PreparedStatement ps = c.prepareStatement(UPDATE)) {
+            ps.setString(1, updated.getTitle());
+            ps.setString(2, updated.getDescription());
+            ps.setString(3, updated.getStatus() == null ? null : updated.getStatus().name());
+            ps.setString(4, updated.getCategory());
+            ps.setString(5, updated.getAssigneeId());
+            ps.setInt(6, updated.getVersion());
+            ps.setString(7, updated.getCreatedAt());
+            ps.setString(8, updated.getUpdatedAt());
+            ps.setString(9, id);
+            ps.setInt(10, expectedVersion);
+            if (ps.executeUpdate() == 1) return updated;
+        }
+        // another writer got in between the read and the update
+        if (findById(c, id).isEmpty()) throw new NotFoundException("Task not found");
+        throw new ConflictException("Version mismatch. Reload and retry.");
+    }
+
+    // one statement, so the row returned is the one that was deleted even with a concurrent update
+    private static Optional<Task> deleteById(Connection c, String id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT " + COLUMNS + " FROM OLD TABLE (DELETE FROM tasks WHERE id = ?)")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(task(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    private static Task task(ResultSet rs) throws SQLException {
+        Task t = new Task();
+        t.setId(rs.getString(1));
+        t.setTitle(rs.getString(2));
+        t.setDescription(rs.getString(3));
+        String status = rs.getString(4);
+        t.setStatus(status == null ? null : TaskStatus.valueOf(status));
+        t.setCategory(rs.getString(5));
+        t.setAssigneeId(rs.getString(6));
+        t.setVersion(rs.getInt(7));
+        t.setCreatedAt(rs.getString(8));
+        t.setUpdatedAt(rs.getString(9));
+        return t;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Users in the {@code users} table. The lowercase username is its own
+ * column with a unique index, so {@link #saveIfAbsent} is a plain insert
+ * that the database rejects for a taken name.
+ */
+@Repository
+@Qualifier("userBackend")
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "jdbc")
+public class JdbcUserStore implements UserStore {
+    private static final String SELECT = "SELECT id, username, role, password_hash FROM users";
+    private static final String MERGE = "MERGE INTO users (id, username, username_key, role, password_hash) KEY (id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT = "INSERT INTO users (id, username, username_key, role, password_hash) VALUES (?, ?, ?, ?, ?)";
+    // SQLSTATE for a unique constraint violation
+    private static final String DUPLICATE_KEY = "23505";
+
+    private final DataSource ds;
+
+    public JdbcUserStore(DataSource ds) {
+        this.ds = ds;
+    }
+
+    @Override public List<User> findAll() {
+        return query(SELECT + " ORDER BY seq", null);
+    }
+
+    @Override public Optional<User> findById(String id) {
+        return query(SELECT + " WHERE id = ?", id).stream().findFirst();
+    }
+
+    @Override public Optional<User> findByUsername(String username) {
+        return query(SELECT + " WHERE username_key = ?", UserStore.usernameKey(username)).stream().findFirst();
+    }
+
+    @Override public User save(User u) {
+        try (Connection c = ds.getConnection()) {
+            write(c, MERGE, u);
+            return u;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override public boolean saveIfAbsent(User u) {
+        try (Connection c = ds.getConnection()) {
+            write(c, INSERT, u);
+            return true;
+        } catch (SQLException e) {
+            if (DUPLICATE_KEY.equals(e.getSQLState())) return false;
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void write(Connection c, String sql, User u) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, u.getId());
+            ps.setString(2, u.getUsername());
+            ps.setString(3, UserStore.usernameKey(u.getUsername()));
+            ps.setString(4, u.getRole());
+            ps.setString(5, u.getPasswordHash());
+            ps.executeUpdate();
+        }
+    }
+
+    static void merge(Connection c, User u) throws SQLException {
+        write(c, MERGE, u);
+    }
+
+    private List<User> query(String sql, String arg) {
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            if (arg != null) ps.setString(1, arg);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<User> users = new ArrayList<>();
+                while (rs.next()) {
+                    User u = new User();
+                    u.setId(rs.getString(1));
+                    u.setUsername(rs.getString(2));
+                    u.setRole(rs.getString(3));
+                    u.setPasswordHash(rs.getString(4));
+                    users.add(u);
+                }
+                return users;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Configuration
 public class JsonStoreConfig {
@@ -12,14 +14,29 @@ public class JsonStoreConfig {
         return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     }
 
+    /** Format of the data files: compact {@code json} or binary {@code smile}. */
+    @Bean public StorageCodec storageCodec(@Value("${trezello.store.codec:json}") String codec) {
+        return StorageCodec.of(codec);
+    }
+
+    /** Creates missing data files and converts existing ones once if they are in the other codec's format. */
     @Bean(name="dataDir")
-    public Path dataDir(@Value("${trezello.dataDir}") String dir) throws Exception {
+    public Path dataDir(@Value("${trezello.dataDir}") String dir, StorageCodec codec) throws Exception {
         Path path = Path.of(dir);
         if (!Files.exists(path)) Files.createDirectories(path);
         Path users = path.resolve("users.json");
         Path tasks = path.resolve("tasks.json");
-        if (!Files.exists(users)) Files.writeString(users, "[]");
-        if (!Files.exists(tasks)) Files.writeString(tasks, "[]");
+        if (!Files.exists(users)) Files.write(users, codec.write(List.of()));
+        if (!Files.exists(tasks)) Files.write(tasks, codec.write(List.of()));
+        codec.migrateUsers(users);
+        codec.migrateTasks(tasks);
+        Path shards = path.resolve("shards");
+        if (Files.isDirectory(shards)) {
+            try (Stream<Path> files = Files.list(shards)) {
+                for (Path shard : files.filter(p -> p.getFileName().toString().matches("tasks-\\d+\\.json")).toList())
+                    codec.migrateTasks(shard);
+            }
+        }
         return path;
     }
 }
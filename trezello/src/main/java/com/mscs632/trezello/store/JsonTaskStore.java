@@ -1,31 +1,69 @@
 package com.mscs632.trezello.store;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
 import com.mscs632.trezello.model.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
+import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
-@Repository
+@Repository("taskBackend")
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "json", matchIfMissing = true)
 public class JsonTaskStore implements TaskStore {
-    private final ObjectMapper om;
+    private final StorageCodec codec;
     private final Path file;
     private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong changeSeq = new AtomicLong();
+    // tasks.json can be edited by hand while the app runs; such edits are noticed by the file's stamp
+    private final AtomicLong outsideChanges = new AtomicLong();
+    private final AtomicReference<Stamp> seen;
+    private final StoreMetrics metrics;
 
-    public JsonTaskStore(ObjectMapper om, Path dataDir) {
-        this.om = om;
+    private record Stamp(FileTime modified, long size) {}
+
+    public JsonTaskStore(StorageCodec codec, Path dataDir, MeterRegistry registry) {
+        this.codec = codec;
         this.file = dataDir.resolve("tasks.json");
+        this.metrics = new StoreMetrics(registry, "tasks.json");
+        this.seen = new AtomicReference<>(stamp());
     }
 
     @Override public List<Task> findAll() {
         try {
-            return om.readValue(Files.readString(file),
-                new TypeReference<>(){}); }
+            return metrics.read(file, codec::readTasks); }
         catch (Exception e) { throw new RuntimeException(e); }
     }
 
+    // readers don't take the lock, so they must only ever see a complete file
+    private void write(List<Task> all) throws IOException {
+        byte[] json = codec.write(all);
+        StoreFiles.writeAtomically(file, json);
+        metrics.written(json.length);
+        seen.set(stamp());
+    }
+
+    /** Modification time and size of the file, or an empty stamp while there is none. */
+    private Stamp stamp() {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Stamp(attrs.lastModifiedTime(), attrs.size());
+        } catch (NoSuchFileException e) {
+            return new Stamp(null, -1);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override public Optional<Task> findById(String id) {
         return findAll().stream()
                 .filter(t -> Objects.equals(t.getId(), id))
@@ -33,34 +71,121 @@ public class JsonTaskStore implements TaskStore {
     }
 
     @Override public Task upsert(Task t) {
-        lock.lock();
+        long locked = metrics.lock(lock);
         try {
             List<Task> all = findAll();
             int idx = -1;
             for (int i=0;i<all.size();i++) if (Objects.equals(all.get(i).getId(), t.getId())) { idx=i; break; }
             if (idx == -1) all.add(t); else all.set(idx, t);
-            Files.writeString(file, om.writeValueAsString(all));
+            write(all);
+            changeSeq.incrementAndGet();
             return t;
         } catch (Exception e)
         {
             throw new RuntimeException(e);
         }
         finally {
-            lock.unlock();
+            metrics.unlock(lock, locked);
         }
     }
 
-    @Override public void deleteById(String id) {
-        lock.lock();
+    @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        long locked = metrics.lock(lock);
         try {
             List<Task> all = findAll();
-            all.removeIf(t -> Objects.equals(t.getId(), id));
-            Files.writeString(file, om.writeValueAsString(all));
+            int idx = -1;
+            for (int i=0;i<all.size();i++) if (Objects.equals(all.get(i).getId(), id)) { idx=i; break; }
+            if (idx == -1) throw new NotFoundException("Task not found");
+            if (all.get(idx).getVersion() != expectedVersion)
+                throw new ConflictException("Version mismatch. Reload and retry.");
+            Task updated = mutator.apply(all.get(idx));
+            updated.setVersion(expectedVersion + 1);
+            all.set(idx, updated);
+            write(all);
+            changeSeq.incrementAndGet();
+            return updated;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    @Override public Optional<Task> deleteById(String id) {
+        long locked = metrics.lock(lock);
+        try {
+            List<Task> all = findAll();
+            Optional<Task> removed = remove(all, id);
+            if (removed.isEmpty()) return removed;
+            write(all);
+            changeSeq.incrementAndGet();
+            return removed;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         finally {
-            lock.unlock();
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    /** Includes edits made to the file by anything other than this store. */
+    @Override public long changeSeq() {
+        return changeSeq.get() + outsideChangeSeq();
+    }
+
+    /** Counts the times the file was found changed since this store last wrote or checked it. */
+    @Override public long outsideChangeSeq() {
+        Stamp now = stamp(), last = seen.get();
+        // a write of our own that has not recorded its stamp yet is counted too; that only costs a cache miss
+        if (!now.equals(last) && seen.compareAndSet(last, now)) outsideChanges.incrementAndGet();
+        return outsideChanges.get();
+    }
+
+    /** Reads the file once, applies the whole batch to that list and writes it back once. */
+    @Override public <R> R batch(Function<TaskStore, R> work) {
+        long locked = metrics.lock(lock);
+        try {
+            List<Task> all = findAll();
+            R result = work.apply(new ListView(all));
+            write(all);
+            changeSeq.incrementAndGet();
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    private static Optional<Task> remove(List<Task> all, String id) {
+        for (int i=0;i<all.size();i++) if (Objects.equals(all.get(i).getId(), id)) return Optional.of(all.remove(i));
+        return Optional.empty();
+    }
+
+    private record ListView(List<Task> all) implements TaskStore {
+        @Override public List<Task> findAll() {
+            return all.stream().map(Task::copy).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+
+        @Override public Optional<Task> findById(String id) {
+            return all.stream().filter(t -> Objects.equals(t.getId(), id)).findFirst().map(Task::copy);
+        }
+
+        @Override public Task upsert(Task t) {
+            int idx = -1;
+            for (int i=0;i<all.size();i++) if (Objects.equals(all.get(i).getId(), t.getId())) { idx=i; break; }
+            if (idx == -1) all.add(t.copy()); else all.set(idx, t.copy());
+            return t;
+        }
+
+        @Override public Optional<Task> deleteById(String id) {
+            return remove(all, id);
+        }
+
+        @Override public long changeSeq() {
+            return 0;
         }
     }
 }
@@ -1,51 +1,111 @@
 package com.mscs632.trezello.store;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mscs632.trezello.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Keeps users.json in memory with id and lowercase-username indexes. The file
+ * is re-read only when its modification time changes, so hand edits to
+ * users.json are still picked up.
+ */
 @Repository
+@Qualifier("userBackend")
+@ConditionalOnExpression("'${trezello.store.type:json}' != 'jdbc' && '${trezello.store.type:json}' != 'replica'")
 public class JsonUserStore implements UserStore {
-    private final ObjectMapper om;
+    private record Snapshot(FileTime modified, List<User> all,
+                            Map<String, User> byId, Map<String, User> byUsername) {
+        static Snapshot of(FileTime modified, List<User> all) {
+            Map<String, User> byId = new HashMap<>();
+            Map<String, User> byUsername = new HashMap<>();
+            for (User u : all) {
+                byId.putIfAbsent(u.getId(), u);
+                if (u.getUsername() != null) byUsername.putIfAbsent(UserStore.usernameKey(u.getUsername()), u);
+            }
+            return new Snapshot(modified, List.copyOf(all), byId, byUsername);
+        }
+    }
+
+    private final StorageCodec codec;
     private final Path file;
     private final ReentrantLock lock = new ReentrantLock();
+    private final StoreMetrics metrics;
+    private volatile Snapshot snapshot;
 
-    public JsonUserStore(ObjectMapper om, Path dataDir) {
-        this.om = om;
+    public JsonUserStore(StorageCodec codec, Path dataDir, MeterRegistry registry) {
+        this.codec = codec;
         this.file = dataDir.resolve("users.json");
+        this.metrics = new StoreMetrics(registry, "users.json");
     }
 
-    @Override public List<User> findAll() {
+    private Snapshot current() {
         try {
-            return om.readValue(Files.readString(file),
-            new TypeReference<>(){});
+            Snapshot s = snapshot;
+            if (s != null && s.modified().equals(Files.getLastModifiedTime(file))) return s;
+            long locked = metrics.lock(lock);
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (snapshot == null || !snapshot.modified().equals(modified)) {
+                    snapshot = Snapshot.of(modified, metrics.read(file, codec::readUsers));
+                }
+                return snapshot;
+            } finally {
+                metrics.unlock(lock, locked);
+            }
         }
         catch (Exception e) { throw new RuntimeException(e); }
     }
 
+    @Override public List<User> findAll() {
+        return new ArrayList<>(current().all());
+    }
+
     @Override public Optional<User> findById(String id) {
-        return findAll().stream()
-                .filter(u -> Objects.equals(u.getId(), id))
-                .findFirst();
+        return Optional.ofNullable(current().byId().get(id));
+    }
+
+    @Override public Optional<User> findByUsername(String username) {
+        return Optional.ofNullable(current().byUsername().get(UserStore.usernameKey(username)));
     }
 
     @Override public User save(User u) {
-        lock.lock();
+        long locked = metrics.lock(lock);
         try {
-            List<User> all = findAll();
-            all.add(u);
-            Files.writeString(file, om.writeValueAsString(all));
+            append(current(), u);
             return u;
-        } catch (Exception e)
-        {
-            throw new RuntimeException(e);
+        } finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    @Override public boolean saveIfAbsent(User u) {
+        long locked = metrics.lock(lock);
+        try {
+            Snapshot s = current();
+            if (s.byUsername().containsKey(UserStore.usernameKey(u.getUsername()))) return false;
+            append(s, u);
+            return true;
+        } finally {
+            metrics.unlock(lock, locked);
         }
-        finally {
-            lock.unlock();
+    }
+
+    private void append(Snapshot s, User u) {
+        try {
+            List<User> all = new ArrayList<>(s.all());
+            all.add(u);
+            byte[] json = codec.write(all);
+            StoreFiles.writeAtomically(file, json);
+            metrics.written(json.length);
+            snapshot = Snapshot.of(Files.getLastModifiedTime(file), all);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 }
@@ -0,0 +1,188 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mscs632.trezello.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log: every mutation is appended as one compact JSON line to the
+ * active segment under {@code wal/}. On startup the segments are replayed on
+ * top of the tasks.json snapshot. {@link #compact} rolls to a new segment,
+ * writes a fresh snapshot via atomic rename and drops the sealed segments.
+ */
+public class LogTaskPersistence implements TaskPersistence {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LogRecord(String op, Task task, String id) {
+        static LogRecord upsert(Task t) { return new LogRecord("UPSERT", t, null); }
+        static LogRecord delete(String id) { return new LogRecord("DELETE", null, id); }
+    }
+
+    private final ObjectMapper om;
+    private final StorageCodec codec;
+    private final ObjectWriter recordWriter;
+    private final Path snapshot;
+    private final Path logDir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel active;
+    private long activeSegment;
+    private long activeBytes;
+
+    public LogTaskPersistence(ObjectMapper om, StorageCodec codec, Path snapshot, Path logDir) {
+        this.om = om;
+        this.codec = codec;
+        this.recordWriter = om.writerFor(LogRecord.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.snapshot = snapshot;
+        this.logDir = logDir;
+    }
+
+    @Override public List<Task> load() {
+        try {
+            Files.createDirectories(logDir);
+            LinkedHashMap<String, Task> tasks = new LinkedHashMap<>();
+            for (Task t : codec.readTasks(Files.readAllBytes(snapshot)))
+                tasks.put(t.getId(), t);
+            List<Path> segments = segments(logDir);
+            for (Path seg : segments) {
+                long intact = replay(om, seg, tasks);
+                // anything after the last newline is a torn write from a crash
+                if (intact < Files.size(seg)) {
+                    try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+                        ch.truncate(intact);
+                    }
+                }
+            }
+            activeSegment = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+            openActive();
+            return new ArrayList<>(tasks.values());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The tasks {@link #load} would return, read without creating, opening
+     * or repairing anything, for offline tools working on another
+     * instance's data. A torn record at the end of a segment is skipped.
+     */
+    public static List<Task> read(ObjectMapper om, StorageCodec codec, Path snapshot, Path logDir) throws IOException {
+        LinkedHashMap<String, Task> tasks = new LinkedHashMap<>();
+        for (Task t : codec.readTasks(Files.readAllBytes(snapshot)))
+            tasks.put(t.getId(), t);
+        if (Files.isDirectory(logDir))
+            for (Path seg : segments(logDir)) replay(om, seg, tasks);
+        return new ArrayList<>(tasks.values());
+    }
+
+    /** Applies every complete record in {@code segment} and returns the length they cover. */
+    private static long replay(ObjectMapper om, Path segment, Map<String, Task> tasks) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            LogRecord r = om.readValue(bytes, start, i - start, LogRecord.class);
+            if ("DELETE".equals(r.op())) tasks.remove(r.id());
+            else tasks.put(r.task().getId(), r.task());
+            start = i + 1;
+        }
+        return start;
+    }
+
+    @Override public void upserted(Task t) { append(LogRecord.upsert(t)); }
+
+    @Override public void deleted(String id) { append(LogRecord.delete(id)); }
+
+    private void append(LogRecord r) {
+        try {
+            byte[] json = recordWriter.writeValueAsBytes(r);
+            ByteBuffer buf = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            lock.lock();
+            try {
+                while (buf.hasRemaining()) activeBytes += active.write(buf);
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override public void sync(Supplier<List<Task>> contents) {
+        lock.lock();
+        try {
+            active.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override public void compact(Supplier<List<Task>> contents) {
+        List<Path> sealed;
+        lock.lock();
+        try {
+            if (activeBytes == 0) return;
+            active.force(false);
+            active.close();
+            activeSegment++;
+            openActive();
+            sealed = segments(logDir).stream().filter(p -> segmentNumber(p) < activeSegment).toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+        // every record in a sealed segment was applied in memory before the roll,
+        // so a snapshot taken now covers them; later records live in the new segment
+        try {
+            StoreFiles.writeAtomically(snapshot, codec.write(contents.get()));
+            for (Path p : sealed) Files.deleteIfExists(p);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void openActive() throws IOException {
+        active = FileChannel.open(logDir.resolve(String.format("tasks-%010d.log", activeSegment)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeBytes = active.size();
+    }
+
+    private static List<Path> segments(Path logDir) throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files.filter(p -> p.getFileName().toString().matches("tasks-\\d{10}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(6, 16));
+    }
+
+    @Override public void close() {
+        lock.lock();
+        try {
+            if (active != null && active.isOpen()) {
+                active.force(false);
+                active.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Users of a replica ({@code trezello.store.type=replica}), held only in
+ * memory and written by the replication applier alone, since a replica
+ * sends every write to the primary.
+ */
+@Repository
+@Qualifier("userBackend")
+@ConditionalOnProperty(name = "trezello.store.type", havingValue = "replica")
+public class ReplicaUserStore implements UserStore {
+    private record Entry(long order, User user) {}
+
+    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> byUsername = new ConcurrentHashMap<>();
+    private final AtomicLong order = new AtomicLong();
+
+    @Override public List<User> findAll() {
+        return byId.values().stream().sorted(Comparator.comparingLong(Entry::order)).map(Entry::user).toList();
+    }
+
+    @Override public Optional<User> findById(String id) {
+        Entry e = byId.get(id);
+        return e == null ? Optional.empty() : Optional.of(e.user());
+    }
+
+    @Override public Optional<User> findByUsername(String username) {
+        return Optional.ofNullable(byUsername.get(UserStore.usernameKey(username)));
+    }
+
+    @Override public User save(User u) {
+        Entry prev = byId.get(u.getId());
+        byId.put(u.getId(), new Entry(prev == null ? order.incrementAndGet() : prev.order(), u));
+        if (prev != null && prev.user().getUsername() != null)
+            byUsername.remove(UserStore.usernameKey(prev.user().getUsername()), prev.user());
+        if (u.getUsername() != null) byUsername.put(UserStore.usernameKey(u.getUsername()), u);
+        return u;
+    }
+
+    @Override public boolean saveIfAbsent(User u) {
+        if (u.getUsername() != null && byUsername.putIfAbsent(UserStore.usernameKey(u.getUsername()), u) != null)
+            return false;
+        byId.put(u.getId(), new Entry(order.incrementAndGet(), u));
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Offline re-partitioning of data/shards into a new shard count. Run it with
+ * the app stopped:
+ * <pre>
+ * java -cp trezello.jar -Dloader.main=com.mscs632.trezello.store.ReshardTool \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher data 16 [json|smile]
+ * </pre>
+ * Each old shard is read with its log replayed, the new layout is written
+ * next to it and swapped in; the old directory is kept as shards.bak-*.
+ * Without data/shards the source is data/tasks.json and data/wal.
+ */
+public final class ReshardTool {
+    private ReshardTool() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: ReshardTool <dataDir> <shards> [json|smile]");
+            System.exit(2);
+        }
+        Path dataDir = Path.of(args[0]);
+        int shards = Integer.parseInt(args[1]);
+        StorageCodec codec = StorageCodec.of(args.length == 3 ? args[2] : "json");
+        int moved = reshard(new JsonStoreConfig().objectMapper(), codec, dataDir, shards);
+        System.out.println("Wrote " + moved + " tasks into " + shards + " shards under " + dataDir.resolve("shards"));
+    }
+
+    /** Rewrites the shard layout under {@code dataDir} with {@code shards} shards and returns the task count. */
+    static int reshard(ObjectMapper om, StorageCodec codec, Path dataDir, int shards) throws IOException {
+        if (shards < 1) throw new IllegalArgumentException("shards must be at least 1");
+        Path shardDir = dataDir.resolve("shards");
+        Collection<Task> tasks = readAll(om, codec, dataDir, shardDir);
+
+        List<List<Task>> split = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) split.add(new ArrayList<>());
+        for (Task t : tasks) split.get(ShardedTaskStore.shardOf(t.getAssigneeId(), shards)).add(t);
+
+        Path next = dataDir.resolve("shards.tmp");
+        deleteRecursively(next);
+        Files.createDirectories(next);
+        for (int i = 0; i < shards; i++)
+            StoreFiles.writeAtomically(ShardedTaskStore.snapshot(next, i), codec.write(split.get(i)));
+        if (Files.exists(shardDir))
+            Files.move(shardDir, dataDir.resolve("shards.bak-" + System.currentTimeMillis()), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(next, shardDir, StandardCopyOption.ATOMIC_MOVE);
+        return tasks.size();
+    }
+
+    /**
+     * Every task under {@code dataDir}, read without touching the files, so
+     * a failed run leaves the source as it was. A task left in two shards by
+     * an interrupted move keeps its higher version.
+     */
+    static Collection<Task> readAll(ObjectMapper om, StorageCodec codec, Path dataDir, Path shardDir) throws IOException {
+        LinkedHashMap<String, Task> tasks = new LinkedHashMap<>();
+        int existing = ShardedTaskStore.existingShards(shardDir);
+        if (existing == 0) merge(tasks, LogTaskPersistence.read(om, codec, dataDir.resolve("tasks.json"), dataDir.resolve("wal")));
+        for (int i = 0; i < existing; i++)
+            merge(tasks, LogTaskPersistence.read(om, codec, ShardedTaskStore.snapshot(shardDir, i), ShardedTaskStore.wal(shardDir, i)));
+        return tasks.values();
+    }
+
+    private static void merge(Map<String, Task> tasks, List<Task> source) {
+        for (Task t : source) tasks.merge(t.getId(), t, (a, b) -> b.getVersion() > a.getVersion() ? b : a);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
+import com.mscs632.trezello.model.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Partitions tasks over N {@link InMemoryTaskStore} shards by hash of the
+ * assignee, each with its own locks and files under {@code data/shards/}.
+ * Queries for one assignee (every USER list) touch a single shard, and writes
+ * for different assignees never share a lock or a file.
+ *
+ * <p>An id-to-shard map routes lookups by id. Changing a task's assignee
+ * moves it: the task is written to the new shard before it is removed from
+ * the old one, so a crash in between leaves two copies and the higher
+ * version wins on the next start.
+ */
+public class ShardedTaskStore implements TaskStore, AutoCloseable {
+    private final List<InMemoryTaskStore> shards;
+    private final ConcurrentHashMap<String, InMemoryTaskStore> owners = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+    // ids the running batch wrote; only the batch thread uses it
+    private Set<String> touched;
+
+    public ShardedTaskStore(List<InMemoryTaskStore> shards) {
+        this.shards = List.copyOf(shards);
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+        for (InMemoryTaskStore shard : this.shards)
+            for (Task t : shard.findAll()) claim(t, shard);
+    }
+
+    private void claim(Task t, InMemoryTaskStore shard) {
+        InMemoryTaskStore other = owners.get(t.getId());
+        if (other != null) {
+            int otherVersion = other.findById(t.getId()).map(Task::getVersion).orElse(-1);
+            if (otherVersion >= t.getVersion()) {
+                shard.deleteById(t.getId());
+                return;
+            }
+            other.deleteById(t.getId());
+        }
+        owners.put(t.getId(), shard);
+    }
+
+    /** Shard index for an assignee; String.hashCode is specified, so this is stable across restarts. */
+    public static int shardOf(String assigneeId, int shards) {
+        return assigneeId == null ? 0 : (assigneeId.hashCode() & 0x7fffffff) % shards;
+    }
+
+    static Path snapshot(Path shardDir, int shard) {
+        return shardDir.resolve("tasks-" + shard + ".json");
+    }
+
+    static Path wal(Path shardDir, int shard) {
+        return shardDir.resolve("wal-" + shard);
+    }
+
+    /** Number of shard files in {@code shardDir}, 0 if it does not exist. */
+    static int existingShards(Path shardDir) throws IOException {
+        if (!Files.isDirectory(shardDir)) return 0;
+        try (Stream<Path> files = Files.list(shardDir)) {
+            return (int) files.filter(p -> p.getFileName().toString().matches("tasks-\\d+\\.json")).count();
+        }
+    }
+
+    private InMemoryTaskStore route(String assigneeId) {
+        return shards.get(shardOf(assigneeId, shards.size()));
+    }
+
+    @Override public List<Task> findAll() {
+        return shards.stream().flatMap(s -> s.findAll().stream()).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override public Optional<Task> findById(String id) {
+        InMemoryTaskStore owner = owners.get(id);
+        return owner == null ? Optional.empty() : owner.findById(id);
+    }
+
+    @Override public Stream<Task> find(TaskQuery q) {
+        if (q.assigneeId() != null) return route(q.assigneeId()).find(q);
+        return shards.stream().flatMap(s -> s.find(q));
+    }
+
+    @Override public Task upsert(Task t) {
+        ReentrantLock stripe = lockFor(t.getId());
+        try {
+            moveTo(route(t.getAssigneeId()), t);
+        } finally {
+            unlock(stripe);
+        }
+        return t;
+    }
+
+    @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        ReentrantLock stripe = lockFor(id);
+        try {
+            // every write to this id holds its stripe, so read-check-write is atomic here
+            Task cur = findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
+            if (cur.getVersion() != expectedVersion)
+                throw new ConflictException("Version mismatch. Reload and retry.");
+            Task updated = mutator.apply(cur);
+            updated.setVersion(expectedVersion + 1);
+            moveTo(route(updated.getAssigneeId()), updated);
+            return updated;
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    /** Caller holds the stripe for {@code t}'s id. */
+    private void moveTo(InMemoryTaskStore target, Task t) {
+        if (touched != null) touched.add(t.getId());
+        target.upsert(t);
+        InMemoryTaskStore prev = owners.put(t.getId(), target);
+        if (prev != null && prev != target) prev.deleteById(t.getId());
+    }
+
+    @Override public Optional<Task> deleteById(String id) {
+        ReentrantLock stripe = lockFor(id);
+        try {
+            if (touched != null) touched.add(id);
+            InMemoryTaskStore owner = owners.remove(id);
+            return owner == null ? Optional.empty() : owner.deleteById(id);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    /** Sum of the shards' sequences; grows with every write to any shard. */
+    @Override public long changeSeq() {
+        long seq = 0;
+        for (InMemoryTaskStore s : shards) seq += s.changeSeq();
+        return seq;
+    }
+
+    /**
+     * Excludes single-task writers and opens a batch on every shard. The
+     * shards sync once each after {@code work}, still inside every shard's
+     * batch, so a failure anywhere rolls all of them back, and the owner of
+     * each touched task is looked up again.
+     */
+    @Override public <R> R batch(Function<TaskStore, R> work) {
+        batchLock.writeLock().lock();
+        touched = new HashSet<>();
+        try {
+            return batchFrom(0, work);
+        } catch (RuntimeException | Error e) {
+            for (String id : touched) {
+                owners.remove(id);
+                for (InMemoryTaskStore s : shards) if (s.findById(id).isPresent()) owners.put(id, s);
+            }
+            throw e;
+        } finally {
+            touched = null;
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    private <R> R batchFrom(int shard, Function<TaskStore, R> work) {
+        if (shard == shards.size()) {
+            R result = work.apply(this);
+            for (InMemoryTaskStore s : shards) s.syncIfDurable();
+            return result;
+        }
+        return shards.get(shard).batch(tx -> batchFrom(shard + 1, work), false);
+    }
+
+    private ReentrantLock lockFor(String id) {
+        batchLock.readLock().lock();
+        ReentrantLock stripe = stripes[(id.hashCode() & 0x7fffffff) % stripes.length];
+        stripe.lock();
+        return stripe;
+    }
+
+    private void unlock(ReentrantLock stripe) {
+        stripe.unlock();
+        batchLock.readLock().unlock();
+    }
+
+    public void flush() {
+        for (InMemoryTaskStore s : shards) s.flush();
+    }
+
+    @Override public void close() {
+        for (InMemoryTaskStore s : shards) s.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/** Rewrites the whole tasks.json whenever something changed since the last sync. */
+public class SnapshotTaskPersistence implements TaskPersistence {
+    private final StorageCodec codec;
+    private final Path file;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SnapshotTaskPersistence(StorageCodec codec, Path file) {
+        this.codec = codec;
+        this.file = file;
+    }
+
+    @Override public List<Task> load() {
+        try {
+            return codec.readTasks(Files.readAllBytes(file));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override public void upserted(Task t) { dirty.set(true); }
+
+    @Override public void deleted(String id) { dirty.set(true); }
+
+    @Override public void sync(Supplier<List<Task>> contents) {
+        lock.lock();
+        try {
+            if (!dirty.getAndSet(false)) return;
+            try {
+                StoreFiles.writeAtomically(file, codec.write(contents.get()));
+            } catch (Exception e) {
+                dirty.set(true);
+                throw new RuntimeException(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override public void close() {}
+}
@@ -0,0 +1,91 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * On-disk format of the task and user files, separate from the HTTP mapper
+ * (which indents its output). Writes use the configured format: compact
+ * {@code json} or binary {@code smile}. Reads detect the format from the
+ * file's first bytes, so files written in either format keep loading after
+ * the setting changes. File names stay *.json in both cases.
+ */
+public final class StorageCodec {
+    public enum Format { JSON, SMILE }
+
+    // every Smile document starts with ":)\n"
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    private static final TypeReference<List<Task>> TASKS = new TypeReference<>(){};
+    private static final TypeReference<List<User>> USERS = new TypeReference<>(){};
+
+    private final Format format;
+    private final ObjectReader jsonTasks, jsonUsers, smileTasks, smileUsers;
+    private final ObjectWriter writer;
+
+    public StorageCodec(Format format) {
+        ObjectMapper json = new ObjectMapper();
+        // statuses, categories and assignee ids repeat across tasks; back-references keep them out of the file
+        ObjectMapper smile = SmileMapper.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+        this.format = format;
+        this.jsonTasks = json.readerFor(TASKS);
+        this.jsonUsers = json.readerFor(USERS);
+        this.smileTasks = smile.readerFor(TASKS);
+        this.smileUsers = smile.readerFor(USERS);
+        this.writer = (format == Format.SMILE ? smile : json).writer();
+    }
+
+    public static StorageCodec of(String format) {
+        return new StorageCodec(Format.valueOf(format.toUpperCase()));
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    public static Format detect(byte[] bytes) {
+        if (bytes.length < SMILE_HEADER.length) return Format.JSON;
+        for (int i = 0; i < SMILE_HEADER.length; i++) if (bytes[i] != SMILE_HEADER[i]) return Format.JSON;
+        return Format.SMILE;
+    }
+
+    public List<Task> readTasks(byte[] bytes) throws IOException {
+        return (detect(bytes) == Format.SMILE ? smileTasks : jsonTasks).readValue(bytes);
+    }
+
+    public List<User> readUsers(byte[] bytes) throws IOException {
+        return (detect(bytes) == Format.SMILE ? smileUsers : jsonUsers).readValue(bytes);
+    }
+
+    public byte[] write(List<?> values) throws IOException {
+        return writer.writeValueAsBytes(values);
+    }
+
+    /** Rewrites a task file in this codec's format if it is stored in the other one; true if it did. */
+    public boolean migrateTasks(Path file) throws IOException {
+        return migrate(file, this::readTasks);
+    }
+
+    /** Same as {@link #migrateTasks} for users.json. */
+    public boolean migrateUsers(Path file) throws IOException {
+        return migrate(file, this::readUsers);
+    }
+
+    private boolean migrate(Path file, StoreMetrics.Parser<? extends List<?>> parser) throws IOException {
+        if (!Files.exists(file)) return false;
+        byte[] bytes = Files.readAllBytes(file);
+        if (detect(bytes) == format) return false;
+        StoreFiles.writeAtomically(file, write(parser.parse(bytes)));
+        return true;
+    }
+}
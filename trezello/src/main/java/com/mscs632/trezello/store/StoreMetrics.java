@@ -0,0 +1,70 @@
+package com.mscs632.trezello.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * File I/O, parse and lock meters for one JSON file. Meters are registered
+ * up front so recording on the hot path is a nanoTime pair and no lookup.
+ * Nested acquisitions of a reentrant lock are not recorded twice.
+ */
+final class StoreMetrics {
+    interface Parser<T> {
+        T parse(byte[] bytes) throws IOException;
+    }
+
+    private final Counter bytesRead;
+    private final Counter bytesWritten;
+    private final Timer parse;
+    private final Timer lockWait;
+    private final Timer lockHeld;
+
+    StoreMetrics(MeterRegistry registry, String file) {
+        this.bytesRead = Counter.builder("trezello.store.bytes.read").baseUnit("bytes").tag("file", file).register(registry);
+        this.bytesWritten = Counter.builder("trezello.store.bytes.written").baseUnit("bytes").tag("file", file).register(registry);
+        this.parse = Timer.builder("trezello.store.parse").tag("file", file).register(registry);
+        this.lockWait = Timer.builder("trezello.store.lock.wait").tag("file", file).register(registry);
+        this.lockHeld = Timer.builder("trezello.store.lock.held").tag("file", file).register(registry);
+    }
+
+    <T> T read(Path file, Parser<T> parser) throws IOException {
+        byte[] json = Files.readAllBytes(file);
+        bytesRead.increment(json.length);
+        long start = System.nanoTime();
+        try {
+            return parser.parse(json);
+        } finally {
+            parse.record(System.nanoTime() - start, NANOSECONDS);
+        }
+    }
+
+    void written(int bytes) {
+        bytesWritten.increment(bytes);
+    }
+
+    /** Locks and returns the time the lock was taken, or 0 if this thread already held it. */
+    long lock(ReentrantLock lock) {
+        if (lock.isHeldByCurrentThread()) {
+            lock.lock();
+            return 0;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long locked = System.nanoTime();
+        lockWait.record(locked - start, NANOSECONDS);
+        return locked;
+    }
+
+    void unlock(ReentrantLock lock, long lockedAt) {
+        if (lockedAt != 0) lockHeld.record(System.nanoTime() - lockedAt, NANOSECONDS);
+        lock.unlock();
+    }
+}
@@ -0,0 +1,18 @@
+package com.mscs632.trezello.store;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+/**
+ * Canonical instances for strings with few distinct values (categories,
+ * assignee ids), so a million tasks share a handful of String objects
+ * instead of each holding its own parsed copy. The pool holds its strings
+ * weakly: a value drops out once no stored task uses it any more, so
+ * categories and assignees that come and go do not pile up.
+ */
+final class StringPool {
+    private final Interner<String> pool = Interner.newWeakInterner();
+
+    String canonical(String s) {
+        return s == null ? null : pool.intern(s);
+    }
+}
@@ -0,0 +1,227 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of {@link TieredTaskStore}: immutable gzip segments under
+ * data/archive, named by the month their tasks were completed, each with a
+ * small index file of ids, versions, assignees and categories. Lookups and
+ * filters run on the indexes held in memory; a segment is only decompressed
+ * when one of its tasks is read, and the last few are kept decoded.
+ * Segments are never rewritten, so tasks that leave the archive again are
+ * listed in removed.json instead.
+ */
+final class TaskArchive {
+    private static final String SEGMENT = ".seg.gz";
+    private static final String INDEX = ".idx.json";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<Indexed>> INDEXED = new TypeReference<>(){};
+    private static final TypeReference<Set<String>> IDS = new TypeReference<>(){};
+
+    /** One index line; the segment holds exactly this version of the task. */
+    record Indexed(String id, int version, String assigneeId, String category) {}
+
+    private record Entry(String segment, Indexed task) {}
+
+    private final StorageCodec codec;
+    private final Path dir;
+    private final Path removedFile;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> removed;
+    private final Cache<String, Map<String, Task>> segments;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong changeSeq = new AtomicLong();
+    private final StoreMetrics metrics;
+
+    TaskArchive(StorageCodec codec, Path dir, int cachedSegments, MeterRegistry registry) throws IOException {
+        this.codec = codec;
+        this.dir = Files.createDirectories(dir);
+        this.removedFile = dir.resolve("removed.json");
+        this.segments = Caffeine.newBuilder().maximumSize(cachedSegments).build();
+        this.metrics = new StoreMetrics(registry, "archive");
+        this.removed = Files.exists(removedFile) ? JSON.readValue(removedFile.toFile(), IDS) : new HashSet<>();
+
+        Set<String> archived = new HashSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT)).sorted().toList()) {
+                String name = file.getFileName().toString();
+                for (Indexed t : index(name)) {
+                    archived.add(t.id());
+                    if (!removed.contains(t.id())) register(name, t);
+                }
+            }
+        }
+        // ids whose segments are all gone no longer need hiding
+        if (removed.retainAll(archived)) saveRemoved();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /** Increases whenever archived tasks are hidden. */
+    long changeSeq() {
+        return changeSeq.get();
+    }
+
+    boolean contains(String id) {
+        return entries.containsKey(id);
+    }
+
+    Optional<Task> findById(String id) {
+        Entry e = entries.get(id);
+        if (e == null) return Optional.empty();
+        return Optional.ofNullable(segment(e.segment()).get(id)).map(Task::copy);
+    }
+
+    /** Archived tasks matching {@code q}, reading only the segments that hold a match. */
+    Stream<Task> find(TaskQuery q) {
+        if (q.status() != null && q.status() != TaskStatus.COMPLETED) return Stream.empty();
+        Map<String, List<String>> bySegment = entries.values().stream()
+                .filter(e -> (q.assigneeId() == null || q.assigneeId().equals(e.task().assigneeId()))
+                        && (q.category() == null || q.category().equals(e.task().category())))
+                .collect(Collectors.groupingBy(Entry::segment, TreeMap::new,
+                        Collectors.mapping(e -> e.task().id(), Collectors.toList())));
+        return bySegment.entrySet().stream().flatMap(s -> {
+            Map<String, Task> tasks = segment(s.getKey());
+            return s.getValue().stream().map(tasks::get).filter(Objects::nonNull).map(Task::copy);
+        });
+    }
+
+    /** Writes {@code tasks} to a new segment for {@code month} and makes them visible. */
+    void add(String month, List<Task> tasks) throws IOException {
+        long locked = metrics.lock(lock);
+        try {
+            String name = month + "-" + System.currentTimeMillis();
+            for (int i = 1; Files.exists(dir.resolve(name + SEGMENT)); i++) name = month + "-" + System.currentTimeMillis() + "-" + i;
+            name += SEGMENT;
+            List<Indexed> index = tasks.stream().map(TaskArchive::indexed).toList();
+            write(dir.resolve(name), gzip(codec.write(tasks)));
+            write(indexFile(name), JSON.writeValueAsBytes(index));
+
+            if (removed.removeAll(index.stream().map(Indexed::id).toList())) saveRemoved();
+            for (Indexed t : index) register(name, t);
+        } finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    /** Takes one task out of the archive and returns its archived copy; empty if another caller got it first. */
+    Optional<Task> remove(String id) {
+        long locked = metrics.lock(lock);
+        try {
+            Optional<Task> cur = findById(id);
+            if (cur.isPresent()) forget(List.of(id));
+            return cur;
+        } finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    /** Hides archived copies of these tasks, e.g. once they are changed or deleted in the hot tier. */
+    void forget(Collection<String> ids) {
+        long locked = metrics.lock(lock);
+        try {
+            boolean changed = false;
+            for (String id : ids) changed |= entries.remove(id) != null && removed.add(id);
+            if (changed) {
+                saveRemoved();
+                changeSeq.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            metrics.unlock(lock, locked);
+        }
+    }
+
+    private void register(String segment, Indexed t) {
+        entries.merge(t.id(), new Entry(segment, t),
+                (cur, next) -> next.task().version() >= cur.task().version() ? next : cur);
+    }
+
+    /** The segment's index, rebuilt from the segment if it was never written. */
+    private List<Indexed> index(String segment) throws IOException {
+        Path file = indexFile(segment);
+        if (Files.exists(file)) return metrics.read(file, bytes -> JSON.readValue(bytes, INDEXED));
+        List<Indexed> index = read(segment).stream().map(TaskArchive::indexed).toList();
+        write(file, JSON.writeValueAsBytes(index));
+        return index;
+    }
+
+    /**
+     * Decoded segments are cached by name. Misses decode outside the cache's
+     * map lock, as in {@link CachingUserStore}, so a slow read never blocks
+     * lookups in other segments.
+     */
+    private Map<String, Task> segment(String name) {
+        Map<String, Task> cached = segments.getIfPresent(name);
+        if (cached != null) return cached;
+        Map<String, Task> loaded;
+        try {
+            loaded = read(name).stream().collect(Collectors.toUnmodifiableMap(Task::getId, Function.identity()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Map<String, Task> raced = segments.asMap().putIfAbsent(name, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private List<Task> read(String segment) throws IOException {
+        return metrics.read(dir.resolve(segment), bytes -> codec.readTasks(gunzip(bytes)));
+    }
+
+    private void write(Path file, byte[] bytes) throws IOException {
+        StoreFiles.writeAtomically(file, bytes);
+        metrics.written(bytes.length);
+    }
+
+    private void saveRemoved() throws IOException {
+        write(removedFile, JSON.writeValueAsBytes(removed));
+    }
+
+    private Path indexFile(String segment) {
+        return dir.resolve(segment.substring(0, segment.length() - SEGMENT.length()) + INDEX);
+    }
+
+    private static Indexed indexed(Task t) {
+        return new Indexed(t.getId(), t.getVersion(), t.getAssigneeId(), t.getCategory());
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (OutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
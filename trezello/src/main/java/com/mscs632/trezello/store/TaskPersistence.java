@@ -0,0 +1,37 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * How {@link InMemoryTaskStore} keeps its contents on disk. Mutations are
+ * reported as they happen; {@link #sync} is the durability point.
+ */
+public interface TaskPersistence extends AutoCloseable {
+    /** Returns the persisted tasks in insertion order. */
+    List<Task> load();
+
+    void upserted(Task t);
+
+    void deleted(String id);
+
+    /** Makes every change reported so far durable. {@code contents} yields the full task list. */
+    void sync(Supplier<List<Task>> contents);
+
+    /** Background housekeeping, run off the request path. */
+    default void compact(Supplier<List<Task>> contents) {}
+
+    @Override void close();
+
+    /** Keeps nothing on disk, for a store filled from elsewhere such as a replica's. */
+    static TaskPersistence none() {
+        return new TaskPersistence() {
+            @Override public List<Task> load() { return List.of(); }
+            @Override public void upserted(Task t) {}
+            @Override public void deleted(String id) {}
+            @Override public void sync(Supplier<List<Task>> contents) {}
+            @Override public void close() {}
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import java.util.Objects;
+
+/** Exact-match task filter; a {@code null} field matches anything. */
+public record TaskQuery(TaskStatus status, String category, String assigneeId) {
+    public boolean matches(Task t) {
+        return (status == null || t.getStatus() == status)
+                && (category == null || Objects.equals(t.getCategory(), category))
+                && (assigneeId == null || Objects.equals(t.getAssigneeId(), assigneeId));
+    }
+}
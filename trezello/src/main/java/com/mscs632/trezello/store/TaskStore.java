@@ -1,11 +1,60 @@
 package com.mscs632.trezello.store;
 
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
 import com.mscs632.trezello.model.Task;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public interface TaskStore {
     List<Task> findAll();
     Optional<Task> findById(String id);
     Task upsert(Task t);
-    void deleteById(String id);
+
+    /** Removes the task and returns it as it was, or empty if there was no such task. */
+    Optional<Task> deleteById(String id);
+
+    /** Increases with every write this store instance applies; unchanged means no task changed. */
+    long changeSeq();
+
+    /**
+     * Increases when tasks change without a task change being reported for
+     * them, such as the archiver moving tasks out. Views kept current by
+     * change listeners must start over when it moves.
+     */
+    default long outsideChangeSeq() {
+        return 0;
+    }
+
+    /**
+     * Applies {@code mutator} to a copy of the task if its version is still
+     * {@code expectedVersion}, stores the result with the version bumped and
+     * returns it. Check and write happen atomically for that task.
+     * The default is only atomic when the caller already excludes other
+     * writers (e.g. inside {@link #batch}); shared stores override it.
+     *
+     * @throws NotFoundException if there is no such task
+     * @throws ConflictException if the version no longer matches
+     */
+    default Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        Task cur = findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
+        if (cur.getVersion() != expectedVersion) throw new ConflictException("Version mismatch. Reload and retry.");
+        Task updated = mutator.apply(cur);
+        updated.setVersion(expectedVersion + 1);
+        return upsert(updated);
+    }
+
+    default Stream<Task> find(TaskQuery query) {
+        return findAll().stream().filter(query::matches);
+    }
+
+    /**
+     * Runs {@code work} against a view of this store that is applied under a
+     * single lock acquisition and persisted once when {@code work} returns.
+     */
+    default <R> R batch(Function<TaskStore, R> work) {
+        return work.apply(this);
+    }
 }
@@ -0,0 +1,79 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the {@link TaskStore} implementation from {@code trezello.store.type}:
+ * {@code json} (re-read tasks.json per call) or {@code memory}.
+ * The memory store persists either by rewriting tasks.json ({@code snapshot})
+ * or through an append-only log compacted into tasks.json ({@code log}).
+ * Left unset, the type is {@code json}, persistence {@code snapshot} and
+ * durability {@code sync}; the shipped application.properties chooses
+ * {@code memory} with {@code log} and {@code sync}.
+ * {@code sharded} runs {@code trezello.store.shards} memory stores, one per
+ * file under data/shards; the first start splits tasks.json into them.
+ * {@code jdbc} is {@link JdbcTaskStore}, set up by {@link JdbcStoreConfig}.
+ * {@code replica} is a memory store without files, filled from a primary's
+ * replication log.
+ * The chosen store is the {@code taskBackend} bean, which
+ * {@link TieredTaskStore} wraps when archiving is enabled.
+ */
+@Configuration
+public class TaskStoreConfig {
+
+    @Bean(name = "taskBackend")
+    @ConditionalOnProperty(name = "trezello.store.type", havingValue = "memory")
+    public InMemoryTaskStore inMemoryTaskStore(ObjectMapper om, StorageCodec codec, Path dataDir,
+                                               @Value("${trezello.store.persistence:snapshot}") String persistence,
+                                               @Value("${trezello.store.durability:sync}") String durability,
+                                               @Value("${trezello.store.flushIntervalMs:1000}") long flushIntervalMs,
+                                               @Value("${trezello.store.compactIntervalMs:60000}") long compactIntervalMs) {
+        return new InMemoryTaskStore(persistence(om, codec, persistence, dataDir.resolve("tasks.json"), dataDir.resolve("wal")),
+                InMemoryTaskStore.Durability.valueOf(durability.toUpperCase()), flushIntervalMs, compactIntervalMs);
+    }
+
+    @Bean(name = "taskBackend")
+    @ConditionalOnProperty(name = "trezello.store.type", havingValue = "sharded")
+    public ShardedTaskStore shardedTaskStore(ObjectMapper om, StorageCodec codec, Path dataDir,
+                                             @Value("${trezello.store.shards:8}") int shards,
+                                             @Value("${trezello.store.persistence:snapshot}") String persistence,
+                                             @Value("${trezello.store.durability:sync}") String durability,
+                                             @Value("${trezello.store.flushIntervalMs:1000}") long flushIntervalMs,
+                                             @Value("${trezello.store.compactIntervalMs:60000}") long compactIntervalMs) throws IOException {
+        Path shardDir = dataDir.resolve("shards");
+        int existing = ShardedTaskStore.existingShards(shardDir);
+        if (existing == 0) ReshardTool.reshard(om, codec, dataDir, shards);
+        else if (existing != shards)
+            throw new IllegalStateException(shardDir + " holds " + existing + " shards but trezello.store.shards=" + shards
+                    + "; stop the app and run ReshardTool");
+
+        List<InMemoryTaskStore> stores = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            TaskPersistence p = persistence(om, codec, persistence, ShardedTaskStore.snapshot(shardDir, i), ShardedTaskStore.wal(shardDir, i));
+            stores.add(new InMemoryTaskStore(p, InMemoryTaskStore.Durability.valueOf(durability.toUpperCase()),
+                    flushIntervalMs, compactIntervalMs));
+        }
+        return new ShardedTaskStore(stores);
+    }
+
+    @Bean(name = "taskBackend")
+    @ConditionalOnProperty(name = "trezello.store.type", havingValue = "replica")
+    public InMemoryTaskStore replicaTaskStore() {
+        return new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    }
+
+    static TaskPersistence persistence(ObjectMapper om, StorageCodec codec, String kind, Path snapshot, Path wal) {
+        return switch (kind.toLowerCase()) {
+            case "snapshot" -> new SnapshotTaskPersistence(codec, snapshot);
+            case "log" -> new LogTaskPersistence(om, codec, snapshot, wal);
+            default -> throw new IllegalArgumentException("Unknown trezello.store.persistence: " + kind);
+        };
+    }
+}
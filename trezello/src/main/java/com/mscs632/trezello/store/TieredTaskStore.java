@@ -0,0 +1,230 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps active work in the configured task store and moves tasks completed
+ * more than {@code trezello.archive.afterDays} ago (by their last update)
+ * into a {@link TaskArchive}. Id lookups and {@code COMPLETED} queries fall
+ * back to the archive; other queries only read the hot store. Changing or
+ * deleting an archived task brings it back into the hot store. Inside a
+ * batch the archived copies it replaces are only hidden from the batch and
+ * dropped once the hot store has committed, so a failed batch loses nothing.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "trezello.archive.enabled", havingValue = "true")
+public class TieredTaskStore implements TaskStore, AutoCloseable {
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+    private static final TaskQuery COMPLETED = new TaskQuery(TaskStatus.COMPLETED, null, null);
+
+    private final TaskStore hot;
+    private final TaskArchive cold;
+    private final boolean inBatch;
+    private final ScheduledExecutorService archiver;
+    // archive runs that moved tasks; they bypass TaskService, so no change is reported for them
+    private final AtomicLong moves;
+    // in the batch view: archived copies to drop once the batch commits, hidden until then
+    private final Set<String> dropOnCommit;
+
+    @Autowired
+    public TieredTaskStore(@Qualifier("taskBackend") TaskStore hot, StorageCodec codec, Path dataDir, MeterRegistry registry,
+                           @Value("${trezello.archive.afterDays:30}") long afterDays,
+                           @Value("${trezello.archive.intervalMs:3600000}") long intervalMs,
+                           @Value("${trezello.archive.cachedSegments:4}") int cachedSegments) throws IOException {
+        this.hot = hot;
+        this.cold = new TaskArchive(codec, dataDir.resolve("archive"), cachedSegments, registry);
+        this.inBatch = false;
+        this.moves = new AtomicLong();
+        this.dropOnCommit = null;
+        Gauge.builder("trezello.archive.tasks", cold, TaskArchive::size).register(registry);
+        archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        archiver.scheduleWithFixedDelay(() -> {
+            try { archive(Instant.now().minus(Duration.ofDays(afterDays))); }
+            catch (RuntimeException e) { /* retried on the next tick */ }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** The view handed to batch work: same tiers, writes go to the batch. */
+    private TieredTaskStore(TaskStore tx, TaskArchive cold, AtomicLong moves, Set<String> dropOnCommit) {
+        this.hot = tx;
+        this.cold = cold;
+        this.inBatch = true;
+        this.archiver = null;
+        this.moves = moves;
+        this.dropOnCommit = dropOnCommit;
+    }
+
+    /**
+     * Moves hot tasks completed before {@code cutoff} into one new segment per
+     * month and returns how many moved. Segments are written before the hot
+     * copies are deleted, so readers always find the task in one tier; a task
+     * changed in between stays hot and its archived copy is dropped.
+     */
+    public int archive(Instant cutoff) {
+        Map<String, List<Task>> byMonth = new TreeMap<>();
+        hot.find(COMPLETED).forEach(t -> {
+            Instant done = completedAt(t);
+            if (done != null && done.isBefore(cutoff))
+                byMonth.computeIfAbsent(MONTH.format(done), k -> new ArrayList<>()).add(t);
+        });
+        if (byMonth.isEmpty()) return 0;
+        try {
+            for (Map.Entry<String, List<Task>> month : byMonth.entrySet()) cold.add(month.getKey(), month.getValue());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        List<Task> archived = byMonth.values().stream().flatMap(List::stream).toList();
+        List<String> changed = hot.batch(tx -> {
+            Map<String, Integer> versions = tx.find(COMPLETED)
+                    .collect(Collectors.toMap(Task::getId, Task::getVersion));
+            List<String> stale = new ArrayList<>();
+            for (Task t : archived) {
+                if (Objects.equals(versions.get(t.getId()), t.getVersion())) tx.deleteById(t.getId());
+                else stale.add(t.getId());
+            }
+            return stale;
+        });
+        cold.forget(changed);
+        if (changed.size() < archived.size()) moves.incrementAndGet();
+        return archived.size() - changed.size();
+    }
+
+    private static Instant completedAt(Task t) {
+        if (t.getUpdatedAt() == null) return null;
+        try {
+            return Instant.parse(t.getUpdatedAt());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override public List<Task> findAll() {
+        List<Task> all = new ArrayList<>(hot.findAll());
+        Set<String> ids = all.stream().map(Task::getId).collect(Collectors.toSet());
+        coldFind(new TaskQuery(null, null, null)).filter(t -> !ids.contains(t.getId())).forEach(all::add);
+        return all;
+    }
+
+    @Override public Optional<Task> findById(String id) {
+        Optional<Task> found = hot.findById(id);
+        return found.isPresent() || !coldContains(id) ? found : cold.findById(id);
+    }
+
+    private boolean coldContains(String id) {
+        return cold.contains(id) && (dropOnCommit == null || !dropOnCommit.contains(id));
+    }
+
+    private Stream<Task> coldFind(TaskQuery q) {
+        Stream<Task> archived = cold.find(q);
+        return dropOnCommit == null ? archived : archived.filter(t -> !dropOnCommit.contains(t.getId()));
+    }
+
+    /** Drops the archived copy now, or when the batch commits. */
+    private void drop(String id) {
+        if (dropOnCommit != null) dropOnCommit.add(id);
+        else cold.forget(List.of(id));
+    }
+
+    @Override public Stream<Task> find(TaskQuery q) {
+        if (q.status() != TaskStatus.COMPLETED) return hot.find(q);
+        // an archived task whose hot copy is not deleted yet must not show twice
+        List<Task> warm = hot.find(q).toList();
+        Set<String> ids = warm.stream().map(Task::getId).collect(Collectors.toSet());
+        return Stream.concat(warm.stream(), coldFind(q).filter(t -> !ids.contains(t.getId())));
+    }
+
+    @Override public Task upsert(Task t) {
+        Task stored = hot.upsert(t);
+        if (coldContains(t.getId())) drop(t.getId());
+        return stored;
+    }
+
+    @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        try {
+            return hot.compareAndUpdate(id, expectedVersion, mutator);
+        } catch (NotFoundException e) {
+            if (!coldContains(id)) throw e;
+            if (inBatch) return thaw(id, expectedVersion, mutator);
+            return batch(view -> view.compareAndUpdate(id, expectedVersion, mutator));
+        }
+    }
+
+    /** Batch view only. Writes the updated archived task to the hot store, which excludes other hot writers. */
+    private Task thaw(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+        if (hot.findById(id).isPresent()) return hot.compareAndUpdate(id, expectedVersion, mutator);
+        Task cur = cold.findById(id).orElseThrow(() -> new NotFoundException("Task not found"));
+        if (cur.getVersion() != expectedVersion) throw new ConflictException("Version mismatch. Reload and retry.");
+        Task updated = mutator.apply(cur);
+        updated.setVersion(expectedVersion + 1);
+        hot.upsert(updated);
+        drop(id);
+        return updated;
+    }
+
+    @Override public Optional<Task> deleteById(String id) {
+        Optional<Task> removed = hot.deleteById(id);
+        if (!coldContains(id)) return removed;
+        Optional<Task> archived;
+        if (dropOnCommit == null) {
+            archived = cold.remove(id);
+        } else {
+            archived = cold.findById(id);
+            dropOnCommit.add(id);
+        }
+        return removed.isPresent() ? removed : archived;
+    }
+
+    @Override public long changeSeq() {
+        return hot.changeSeq() + cold.changeSeq();
+    }
+
+    @Override public long outsideChangeSeq() {
+        return hot.outsideChangeSeq() + moves.get();
+    }
+
+    @Override public <R> R batch(Function<TaskStore, R> work) {
+        if (inBatch) return work.apply(this);
+        Set<String> dropped = new HashSet<>();
+        R result = hot.batch(tx -> work.apply(new TieredTaskStore(tx, cold, moves, dropped)));
+        cold.forget(dropped);
+        return result;
+    }
+
+    @Override public void close() {
+        if (archiver != null) archiver.shutdownNow();
+    }
+}
@@ -2,10 +2,21 @@ package com.mscs632.trezello.store;
 
 import com.mscs632.trezello.model.User;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 public interface UserStore {
     List<User> findAll();
     Optional<User> findById(String id);
     User save(User u);
-}
\ No newline at end of file
+
+    /** Case-insensitive lookup through the username index. */
+    Optional<User> findByUsername(String username);
+
+    /** Saves {@code u} unless its username is already taken; returns whether it was saved. */
+    boolean saveIfAbsent(User u);
+
+    static String usernameKey(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,99 @@
+package com.mscs632.trezello.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    @Test
+    void emptyBucketAnswers429WhateverUserIdIsSent() throws Exception {
+        RateLimitFilter filter = filter(64, "");
+        assertThat(send(filter, get("10.0.0.1", "u1"))).isEqualTo(200);
+        assertThat(send(filter, get("10.0.0.1", "u2"))).isEqualTo(200);
+
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(get("10.0.0.1", "u3"), res, new MockFilterChain());
+        assertThat(res.getStatus()).isEqualTo(429);
+        assertThat(res.getHeader("Retry-After")).isNotNull();
+
+        assertThat(send(filter, get("10.0.0.2", "u1"))).isEqualTo(200);
+    }
+
+    @Test
+    void busyServerAnswers503() throws Exception {
+        RateLimitFilter filter = filter(1, "");
+        CountDownLatch inside = new CountDownLatch(1), release = new CountDownLatch(1);
+        FilterChain held = (req, res) -> {
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(get("10.0.0.1", null), new MockHttpServletResponse(), held);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        try {
+            assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            filter.doFilter(get("10.0.0.2", null), res, new MockFilterChain());
+            assertThat(res.getStatus()).isEqualTo(503);
+            assertThat(res.getHeader("Retry-After")).isEqualTo("1");
+        } finally {
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(send(filter, get("10.0.0.2", null))).isEqualTo(200);
+    }
+
+    @Test
+    void forwardedForCountsOnlyFromTrustedProxies() {
+        RateLimitFilter filter = filter(64, "127.0.0.1, 10.0.0.9");
+
+        MockHttpServletRequest spoofed = get("10.0.0.1", null);
+        spoofed.addHeader("X-Forwarded-For", "192.0.2.7");
+        assertThat(filter.clientAddress(spoofed)).isEqualTo("10.0.0.1");
+
+        MockHttpServletRequest forwarded = get("127.0.0.1", null);
+        forwarded.addHeader("X-Forwarded-For", "192.0.2.7");
+        forwarded.addHeader("X-Forwarded-For", "198.51.100.3, 10.0.0.9");
+        assertThat(filter.clientAddress(forwarded)).isEqualTo("198.51.100.3");
+
+        MockHttpServletRequest direct = get("127.0.0.1", null);
+        assertThat(filter.clientAddress(direct)).isEqualTo("127.0.0.1");
+    }
+
+    /** Two reads per client and no refill to speak of. */
+    private static RateLimitFilter filter(int maxConcurrent, String trustedProxies) {
+        return new RateLimitFilter(new SimpleMeterRegistry(), 0.001, 2, 0.001, 2, 0.001, 2,
+                maxConcurrent, 10, 1, 1000, 600, trustedProxies);
+    }
+
+    private static MockHttpServletRequest get(String remoteAddr, String userId) {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/tasks");
+        req.setRemoteAddr(remoteAddr);
+        if (userId != null) req.addHeader("X-User-Id", userId);
+        return req;
+    }
+
+    private static int send(RateLimitFilter filter, MockHttpServletRequest req) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(req, res, new MockFilterChain());
+        return res.getStatus();
+    }
+}
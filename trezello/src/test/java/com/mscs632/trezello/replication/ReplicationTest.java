@@ -0,0 +1,159 @@
+package com.mscs632.trezello.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.service.TaskChangeListener;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.ReplicaUserStore;
+import com.mscs632.trezello.store.TaskPersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mscs632.trezello.model.TaskChange.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationTest {
+    private final ObjectMapper om = new ObjectMapper();
+    private final FlakyStore primary = new FlakyStore();
+    private final InMemoryTaskStore replica = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    private final List<TaskChange> applied = new CopyOnWriteArrayList<>();
+    private ReplicationPublisher publisher;
+    private ReplicaApplier applier;
+
+    @TempDir Path dir;
+
+    @AfterEach
+    void close() throws Exception {
+        if (applier != null) applier.destroy();
+        if (publisher != null) publisher.destroy();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void lateUpdateAfterARollDoesNotBringADeletedTaskBack() throws Exception {
+        // every entry fills a segment, so each change is followed by a new copy
+        publisher = publisher(1);
+        Task a1 = task("a", 1), a2 = task("a", 2);
+        primary.upsert(a1);
+        publisher.onTaskChange(new TaskChange(CREATED, null, a1));
+        primary.deleteById("a");
+        publisher.onTaskChange(new TaskChange(DELETED, a1, null));
+        publisher.awaitRoll();
+        applier = applier();
+        assertThat(applier.awaitApplied(publisher.head(), 5000)).isTrue();
+
+        // an update committed before the delete but reported after it and after the copy
+        publisher.onTaskChange(new TaskChange(UPDATED, a1, a2));
+        assertThat(applier.awaitApplied(publisher.head(), 5000)).isTrue();
+
+        assertThat(replica.findById("a")).isEmpty();
+        assertThat(applied).noneMatch(c -> c.after() != null && c.after().getId().equals("a"));
+    }
+
+    @Test
+    void failedAppendMarksReplicationBrokenUntilTheNextSegment() throws Exception {
+        publisher = publisher(1);
+        primary.failing = true;
+        Task a = task("a", 1);
+        primary.upsert(a);
+        publisher.onTaskChange(new TaskChange(CREATED, null, a));
+        publisher.awaitRoll();
+        assertThat(publisher.status().get("broken")).isNotNull();
+
+        primary.failing = false;
+        Task b = task("b", 1);
+        primary.upsert(b);
+        publisher.onTaskChange(new TaskChange(CREATED, null, b));
+        publisher.awaitRoll();
+        assertThat(publisher.status().get("broken")).isNull();
+
+        applier = applier();
+        assertThat(applier.awaitApplied(publisher.head(), 5000)).isTrue();
+        assertThat(replica.findAll()).extracting(Task::getId).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void changesDuringACopyAreNotHeldUpAndFollowIt() throws Exception {
+        publisher = publisher(1);
+        primary.blocked = new CountDownLatch(1);
+        Task a = task("a", 1);
+        primary.upsert(a);
+        publisher.onTaskChange(new TaskChange(CREATED, null, a));
+
+        // the next segment's copy is stuck reading the store; writers still get their numbers
+        long beforeB = publisher.head();
+        Task b = task("b", 1);
+        primary.upsert(b);
+        CompletableFuture.runAsync(() -> publisher.onTaskChange(new TaskChange(CREATED, null, b)))
+                .get(5, TimeUnit.SECONDS);
+        assertThat(publisher.head()).isGreaterThan(beforeB);
+
+        primary.blocked.countDown();
+        publisher.awaitRoll();
+        applier = applier();
+        assertThat(applier.awaitApplied(publisher.head(), 5000)).isTrue();
+        assertThat(replica.findAll()).extracting(Task::getId).containsExactlyInAnyOrder("a", "b");
+    }
+
+    private ReplicationPublisher publisher(long segmentBytes) throws Exception {
+        return new ReplicationPublisher(primary, new ReplicaUserStore(), om, new SimpleMeterRegistry(),
+                dir.toString(), segmentBytes);
+    }
+
+    private ReplicaApplier applier() {
+        TaskChangeListener record = applied::add;
+        return new ReplicaApplier(replica, new ReplicaUserStore(), List.of(record), om, new SimpleMeterRegistry(),
+                dir.toString(), "test", 5);
+    }
+
+    /**
+     * A primary store whose full scans, and so new segments, fail while
+     * {@code failing} is set and wait while {@code blocked} is.
+     */
+    private static final class FlakyStore extends InMemoryTaskStore {
+        volatile boolean failing;
+        volatile CountDownLatch blocked;
+
+        FlakyStore() {
+            super(TaskPersistence.none(), Durability.SYNC, 0, 0);
+        }
+
+        @Override public List<Task> findAll() {
+            if (failing) throw new IllegalStateException("store unavailable");
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.findAll();
+        }
+    }
+
+    private static Task task(String id, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
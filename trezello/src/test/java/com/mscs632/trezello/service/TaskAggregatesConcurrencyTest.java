@@ -0,0 +1,96 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.UpdateTaskRequest;
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.exception.NotFoundException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.JsonTaskStore;
+import com.mscs632.trezello.store.StorageCodec;
+import com.mscs632.trezello.store.TaskPersistence;
+import com.mscs632.trezello.store.TaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskAggregatesConcurrencyTest {
+    private static final String ADMIN = "admin";
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @TempDir Path dir;
+
+    @AfterEach
+    void close() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void racingDeletesAndUpdatesKeepCountsExactInMemory() throws Exception {
+        try (InMemoryTaskStore store = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0)) {
+            race(store, 300);
+        }
+    }
+
+    @Test
+    void racingDeletesAndUpdatesKeepCountsExactInJsonFile() throws Exception {
+        Files.writeString(dir.resolve("tasks.json"), "[]");
+        race(new JsonTaskStore(new StorageCodec(StorageCodec.Format.JSON), dir, new SimpleMeterRegistry()), 40);
+    }
+
+    /** Two deletes and an update per task, all at once; the counters must match a recount afterwards. */
+    private void race(TaskStore store, int tasks) throws Exception {
+        for (int i = 0; i < tasks; i++) store.upsert(task("t" + i, "u" + (i % 3), i % 2 == 0 ? "work" : "home"));
+        TaskAggregates aggregates = new TaskAggregates(store);
+        TaskService service = new TaskService(store, List.of(aggregates), new SimpleMeterRegistry());
+
+        List<Callable<Void>> work = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            String id = "t" + i;
+            work.add(() -> quietly(() -> service.delete(id, ADMIN, UserRole.ADMIN)));
+            work.add(() -> quietly(() -> service.delete(id, ADMIN, UserRole.ADMIN)));
+            work.add(() -> quietly(() -> service.update(id, new UpdateTaskRequest("moved", null, "other", "u9",
+                    TaskStatus.COMPLETED, 1), ADMIN, UserRole.ADMIN)));
+        }
+        Collections.shuffle(work);
+        for (Future<Void> f : pool.invokeAll(work, 60, TimeUnit.SECONDS)) f.get();
+
+        assertThat(store.findAll()).isEmpty();
+        assertThat(aggregates.stats(ADMIN, UserRole.ADMIN)).isEqualTo(new TaskAggregates(store).stats(ADMIN, UserRole.ADMIN));
+        assertThat(aggregates.stats(ADMIN, UserRole.ADMIN).total()).isZero();
+    }
+
+    private static Void quietly(Runnable r) {
+        try {
+            r.run();
+        } catch (NotFoundException | ConflictException e) {
+            // lost the race to another writer
+        }
+        return null;
+    }
+
+    private static Task task(String id, String assigneeId, String category) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory(category);
+        t.setAssigneeId(assigneeId);
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(1);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
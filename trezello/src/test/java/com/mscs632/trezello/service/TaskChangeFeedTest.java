@@ -0,0 +1,76 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.ChangeFeedResponse;
+import com.mscs632.trezello.dto.TaskChangeEvent;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.mscs632.trezello.model.TaskChange.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskChangeFeedTest {
+    private final TaskChangeFeed feed = new TaskChangeFeed(4, 0, 0);
+
+    @AfterEach
+    void close() {
+        feed.destroy();
+    }
+
+    @Test
+    void lateOlderVersionIsDropped() {
+        feed.onTaskChange(new TaskChange(CREATED, null, task("a", 1)));
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 2), task("a", 3)));
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 1), task("a", 2)));
+
+        ChangeFeedResponse r = read(0);
+        assertThat(r.seq()).isEqualTo(2);
+        assertThat(r.changes()).extracting(e -> e.task().getVersion()).containsExactly(1, 3);
+    }
+
+    @Test
+    void deleteWinsOverLateUpdateOfTheSameVersion() {
+        feed.onTaskChange(new TaskChange(CREATED, null, task("a", 1)));
+        feed.onTaskChange(new TaskChange(DELETED, task("a", 2), null));
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 1), task("a", 2)));
+
+        assertThat(read(0).changes()).extracting(TaskChangeEvent::type).containsExactly(CREATED, DELETED);
+    }
+
+    @Test
+    void otherTasksAreNotAffected() {
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 4), task("a", 5)));
+        feed.onTaskChange(new TaskChange(UPDATED, task("b", 1), task("b", 2)));
+
+        assertThat(read(0).changes()).extracting(TaskChangeEvent::taskId).containsExactly("a", "b");
+    }
+
+    @Test
+    void versionsAreForgottenOnceTheirEntryLeavesTheRing() {
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 4), task("a", 5)));
+        for (int i = 0; i < 4; i++) feed.onTaskChange(new TaskChange(CREATED, null, task("x" + i, 1)));
+        // the entry for a@5 has been overwritten, so nothing is left to compare against
+        feed.onTaskChange(new TaskChange(UPDATED, task("a", 2), task("a", 3)));
+
+        ChangeFeedResponse r = read(2);
+        assertThat(r.changes()).extracting(TaskChangeEvent::taskId).containsExactly("x1", "x2", "x3", "a");
+    }
+
+    private ChangeFeedResponse read(long since) {
+        return feed.read(since, "admin", UserRole.ADMIN);
+    }
+
+    private static Task task(String id, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        return t;
+    }
+}
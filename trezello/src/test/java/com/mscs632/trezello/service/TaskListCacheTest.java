@@ -0,0 +1,124 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.StorageCodec;
+import com.mscs632.trezello.store.TaskPersistence;
+import com.mscs632.trezello.store.TaskQuery;
+import com.mscs632.trezello.store.TieredTaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.mscs632.trezello.model.TaskChange.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskListCacheTest {
+    private static final TaskQuery ALL = new TaskQuery(null, null, null);
+    private static final TaskQuery U1 = new TaskQuery(null, null, "u1");
+
+    private final TaskListCache cache = new TaskListCache(new SimpleMeterRegistry(), true, 1 << 20, -1);
+    private final InMemoryTaskStore hot = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    private TieredTaskStore store;
+
+    @TempDir Path dir;
+
+    @BeforeEach
+    void open() throws Exception {
+        store = new TieredTaskStore(hot, new StorageCodec(StorageCodec.Format.JSON), dir, new SimpleMeterRegistry(),
+                30, 3_600_000, 4);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+        hot.close();
+    }
+
+    @Test
+    void unreportedWriteKeepsTheOldBodyUnderItsOldTag() {
+        store.upsert(task("a", "u1", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        TaskListCache.Body before = get(ALL);
+
+        // the store has moved on; no listener has heard of it yet
+        Task b = store.upsert(task("b", "u1", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        assertThat(cache.get(ALL, store.outsideChangeSeq(), failing())).isSameAs(before);
+
+        cache.onTaskChange(new TaskChange(CREATED, null, b));
+        TaskListCache.Body after = get(ALL);
+        assertThat(json(after)).isEqualTo("a,b");
+        assertThat(after.generation()).isNotEqualTo(before.generation());
+    }
+
+    @Test
+    void changeToAnotherAssigneeKeepsTheEntry() {
+        store.upsert(task("a", "u1", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        assertThat(json(get(U1))).isEqualTo("a");
+
+        Task other = store.upsert(task("x", "u2", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        cache.onTaskChange(new TaskChange(CREATED, null, other));
+        assertThat(json(cache.get(U1, store.outsideChangeSeq(), failing()))).isEqualTo("a");
+    }
+
+    @Test
+    void loadThatRacedAChangeIsNotKept() {
+        Task a = store.upsert(task("a", "u1", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        cache.get(ALL, store.outsideChangeSeq(), () -> {
+            byte[] body = bytes("stale");
+            cache.onTaskChange(new TaskChange(CREATED, null, a));
+            return body;
+        });
+        assertThat(json(get(ALL))).isEqualTo("a");
+    }
+
+    @Test
+    void archiveMoveIsAMiss() {
+        store.upsert(task("old", "u1", TaskStatus.COMPLETED, "2020-01-01T00:00:00Z"));
+        store.upsert(task("new", "u1", TaskStatus.PENDING, "2024-01-01T00:00:00Z"));
+        assertThat(json(get(ALL))).isEqualTo("new,old");
+
+        assertThat(store.archive(Instant.parse("2021-01-01T00:00:00Z"))).isEqualTo(1);
+        assertThat(json(get(ALL))).isEqualTo("new");
+    }
+
+    /** What a GET for {@code q} is answered with; the body lists sorted ids. */
+    private TaskListCache.Body get(TaskQuery q) {
+        return cache.get(q, store.outsideChangeSeq(),
+                () -> bytes(store.find(q).map(Task::getId).sorted().collect(Collectors.joining(","))));
+    }
+
+    private static Supplier<byte[]> failing() {
+        return () -> { throw new AssertionError("expected a cache hit"); };
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String json(TaskListCache.Body body) {
+        return new String(body.json(), StandardCharsets.UTF_8);
+    }
+
+    private static Task task(String id, String assigneeId, TaskStatus status, String updatedAt) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId(assigneeId);
+        t.setStatus(status);
+        t.setVersion(1);
+        t.setCreatedAt("2020-01-01T00:00:00Z");
+        t.setUpdatedAt(updatedAt);
+        return t;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.TaskPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.mscs632.trezello.model.TaskChange.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskSearchIndexTest {
+    private final InMemoryTaskStore store = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void lateUpdateDoesNotReindexADeletedTask() {
+        TaskSearchIndex index = new TaskSearchIndex(store);
+        Task a1 = task("a", "u1", "alpha", 1), a2 = task("a", "u1", "alpha", 2);
+        index.onTaskChange(new TaskChange(CREATED, null, a1));
+        index.onTaskChange(new TaskChange(DELETED, a2, null));
+        index.onTaskChange(new TaskChange(UPDATED, a1, a2));
+
+        // a task with the same id back in the store shows whether the index still holds it
+        store.upsert(a2);
+        assertThat(index.search("alpha", 10, "admin", UserRole.ADMIN)).isEmpty();
+    }
+
+    @Test
+    void hitsSkippedByTheStoreCheckDoNotShortenThePage() {
+        // the best-ranked hits are gone from the store but still indexed
+        for (int i = 0; i < 5; i++) store.upsert(task("gone" + i, "u1", "report report report", 1));
+        for (int i = 0; i < 5; i++) store.upsert(task("kept" + i, "u1", "report", 1));
+        TaskSearchIndex index = new TaskSearchIndex(store);
+        for (int i = 0; i < 5; i++) store.deleteById("gone" + i);
+
+        List<Task> hits = index.search("report", 3, "u1", UserRole.USER);
+        assertThat(hits).hasSize(3).allMatch(t -> t.getId().startsWith("kept"));
+    }
+
+    private static Task task(String id, String assigneeId, String title, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle(title);
+        t.setCategory("work");
+        t.setAssigneeId(assigneeId);
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
@@ -0,0 +1,126 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.BatchItemResult;
+import com.mscs632.trezello.dto.BatchOperation;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskChange;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.TaskPersistence;
+import com.mscs632.trezello.store.TaskQuery;
+import com.mscs632.trezello.store.TaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static com.mscs632.trezello.dto.BatchOperation.Op.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskServiceBatchTest {
+    private static final String ADMIN = "admin";
+
+    private final InMemoryTaskStore memory = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    private final CommitStore store = new CommitStore(memory);
+    private final List<TaskChange> heard = new ArrayList<>();
+    private final List<Boolean> heardDuringBatch = new ArrayList<>();
+    private final TaskService service = new TaskService(store, List.of(c -> {
+        heard.add(c);
+        heardDuringBatch.add(store.inBatch);
+    }), new SimpleMeterRegistry());
+
+    @AfterEach
+    void close() {
+        memory.close();
+    }
+
+    @Test
+    void committedBatchIsReportedAfterCommit() {
+        memory.upsert(task("a"));
+        memory.upsert(task("b"));
+
+        List<BatchItemResult> results = service.batch(List.of(
+                op(CREATE, null, null), op(COMPLETE, "a", 1), op(DELETE, "b", null), op(DELETE, "missing", null)),
+                ADMIN, UserRole.ADMIN);
+
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(200, 200, 200, 404);
+        assertThat(heard).extracting(TaskChange::type)
+                .containsExactly(TaskChange.Type.CREATED, TaskChange.Type.COMPLETED, TaskChange.Type.DELETED);
+        assertThat(heardDuringBatch).containsOnly(false);
+    }
+
+    @Test
+    void failedCommitIsNotReported() {
+        memory.upsert(task("a"));
+        store.failCommit = true;
+
+        assertThatThrownBy(() -> service.batch(List.of(op(CREATE, null, null), op(DELETE, "a", null)),
+                ADMIN, UserRole.ADMIN)).hasMessage("commit failed");
+
+        assertThat(heard).isEmpty();
+    }
+
+    @Test
+    void singleWritesAreStillReportedAtOnce() {
+        memory.upsert(task("a"));
+        service.delete("a", ADMIN, UserRole.ADMIN);
+
+        assertThat(heard).extracting(TaskChange::taskId).containsExactly("a");
+    }
+
+    private static BatchOperation op(BatchOperation.Op op, String id, Integer version) {
+        return new BatchOperation(op, id, version, "title", null, "work", "u1", null);
+    }
+
+    private static Task task(String id) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(1);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+
+    /** A store whose batch "commits" after the work returns, and can be told to fail there. */
+    private static final class CommitStore implements TaskStore {
+        private final TaskStore inner;
+        volatile boolean inBatch, failCommit;
+
+        CommitStore(TaskStore inner) {
+            this.inner = inner;
+        }
+
+        @Override public <R> R batch(Function<TaskStore, R> work) {
+            inBatch = true;
+            try {
+                R result = inner.batch(work);
+                if (failCommit) throw new IllegalStateException("commit failed");
+                return result;
+            } finally {
+                inBatch = false;
+            }
+        }
+
+        @Override public List<Task> findAll() { return inner.findAll(); }
+        @Override public Optional<Task> findById(String id) { return inner.findById(id); }
+        @Override public Stream<Task> find(TaskQuery q) { return inner.find(q); }
+        @Override public Task upsert(Task t) { return inner.upsert(t); }
+        @Override public Optional<Task> deleteById(String id) { return inner.deleteById(id); }
+        @Override public long changeSeq() { return inner.changeSeq(); }
+        @Override public Task compareAndUpdate(String id, int expectedVersion, UnaryOperator<Task> mutator) {
+            return inner.compareAndUpdate(id, expectedVersion, mutator);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mscs632.trezello.service;
+
+import com.mscs632.trezello.dto.TaskPage;
+import com.mscs632.trezello.dto.UpdateTaskRequest;
+import com.mscs632.trezello.exception.BadRequestException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import com.mscs632.trezello.model.UserRole;
+import com.mscs632.trezello.store.InMemoryTaskStore;
+import com.mscs632.trezello.store.TaskPersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskServicePagingTest {
+    private static final String ADMIN = "admin";
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    private final TaskService service = new TaskService(store, List.of(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void pagesVisitEveryTaskOnceWhileTasksAreEdited() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) ids.add(add("t" + i, Instant.EPOCH.plusSeconds(i).toString()).getId());
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TaskPage page = service.page(null, null, null, ADMIN, UserRole.ADMIN, 10, cursor);
+            page.items().forEach(t -> seen.add(t.getId()));
+            // touching tasks on either side of the cursor must not move them between pages
+            edit(ids.get(0));
+            edit(ids.get(ids.size() - 1));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void tiesOnCreatedAtAreBrokenById() {
+        add("b", "2024-01-01T00:00:00Z");
+        add("a", "2024-01-01T00:00:00Z");
+        add("c", "2024-01-01T00:00:00Z");
+
+        TaskPage first = service.page(null, null, null, ADMIN, UserRole.ADMIN, 2, null);
+        TaskPage second = service.page(null, null, null, ADMIN, UserRole.ADMIN, 2, first.nextCursor());
+
+        assertThat(first.items()).extracting(Task::getId).containsExactly("a", "b");
+        assertThat(second.items()).extracting(Task::getId).containsExactly("c");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void unparseableCreatedAtSortsFirstInsteadOfFailing() {
+        add("late", "2024-01-01T00:00:00Z");
+        add("odd", "yesterday");
+        add("none", null);
+
+        TaskPage page = service.page(null, null, null, ADMIN, UserRole.ADMIN, 10, null);
+
+        assertThat(page.items()).extracting(Task::getId).containsExactly("none", "odd", "late");
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        add("a", "2024-01-01T00:00:00Z");
+        for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "eWVzdGVyZGF5fGE"))
+            assertThatThrownBy(() -> service.page(null, null, null, ADMIN, UserRole.ADMIN, 10, cursor))
+                    .isInstanceOf(BadRequestException.class);
+    }
+
+    private Task add(String id, String createdAt) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle(id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(1);
+        t.setCreatedAt(createdAt);
+        t.setUpdatedAt(createdAt);
+        return store.upsert(t);
+    }
+
+    private void edit(String id) {
+        Task cur = store.findById(id).orElseThrow();
+        service.update(id, new UpdateTaskRequest(cur.getTitle() + "!", null, cur.getCategory(), null,
+                TaskStatus.IN_PROGRESS, cur.getVersion()), ADMIN, UserRole.ADMIN);
+    }
+}
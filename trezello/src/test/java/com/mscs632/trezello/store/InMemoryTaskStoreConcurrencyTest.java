@@ -0,0 +1,100 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.exception.ConflictException;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTaskStoreConcurrencyTest {
+    private static final int THREADS = 8;
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore(TaskPersistence.none(), InMemoryTaskStore.Durability.SYNC, 0, 0);
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void close() {
+        pool.shutdownNow();
+        store.close();
+    }
+
+    @Test
+    void onlyOneWriterWinsEachVersion() throws Exception {
+        store.upsert(task("t", 1));
+        for (int round = 1; round <= 50; round++) {
+            int expected = round;
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            AtomicInteger won = new AtomicInteger(), conflicted = new AtomicInteger();
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String title = "round " + round + " writer " + i;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        store.compareAndUpdate("t", expected, t -> { t.setTitle(title); return t; });
+                        won.incrementAndGet();
+                    } catch (ConflictException e) {
+                        conflicted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : writers) f.get(10, TimeUnit.SECONDS);
+
+            assertThat(won.get()).isEqualTo(1);
+            assertThat(conflicted.get()).isEqualTo(THREADS - 1);
+            assertThat(store.findById("t").orElseThrow().getVersion()).isEqualTo(round + 1);
+        }
+    }
+
+    @Test
+    void retryingWritersLoseNoUpdates() throws Exception {
+        int perThread = 500;
+        store.upsert(task("t", 1));
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            writers.add(pool.submit(() -> {
+                for (int n = 0; n < perThread; n++) {
+                    while (true) {
+                        Task cur = store.findById("t").orElseThrow();
+                        try {
+                            store.compareAndUpdate("t", cur.getVersion(), t -> {
+                                t.setDescription(Integer.toString(Integer.parseInt(t.getDescription()) + 1));
+                                return t;
+                            });
+                            break;
+                        } catch (ConflictException e) {
+                            // lost the race; read the new version and try again
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : writers) f.get(30, TimeUnit.SECONDS);
+
+        Task t = store.findById("t").orElseThrow();
+        assertThat(t.getDescription()).isEqualTo(Integer.toString(THREADS * perThread));
+        assertThat(t.getVersion()).isEqualTo(1 + THREADS * perThread);
+    }
+
+    private static Task task(String id, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setDescription("0");
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
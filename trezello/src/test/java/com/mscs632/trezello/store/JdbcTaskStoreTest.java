@@ -0,0 +1,64 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcTaskStoreTest {
+    private HikariDataSource ds;
+    private JdbcTaskStore store;
+
+    @BeforeEach
+    void open() throws Exception {
+        ds = JdbcStoreConfig.dataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", 2);
+        JdbcStoreConfig.createSchema(ds);
+        store = new JdbcTaskStore(ds);
+    }
+
+    @AfterEach
+    void close() {
+        ds.close();
+    }
+
+    @Test
+    void deleteReturnsTheRemovedRowOnce() {
+        store.upsert(task("a", 3));
+        long seq = store.changeSeq();
+
+        assertThat(store.deleteById("a")).contains(task("a", 3));
+        assertThat(store.deleteById("a")).isEmpty();
+        assertThat(store.findById("a")).isEmpty();
+        assertThat(store.changeSeq()).isEqualTo(seq + 1);
+    }
+
+    @Test
+    void deleteInsideBatchReturnsTheRemovedRow() {
+        store.upsert(task("a", 1));
+        List<Optional<Task>> removed = store.batch(tx -> List.of(tx.deleteById("a"), tx.deleteById("b")));
+
+        assertThat(removed).containsExactly(Optional.of(task("a", 1)), Optional.empty());
+        assertThat(store.findAll()).isEmpty();
+    }
+
+    private static Task task(String id, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonTaskStoreTest {
+    private final StorageCodec codec = new StorageCodec(StorageCodec.Format.JSON);
+
+    @TempDir Path dir;
+
+    @BeforeEach
+    void emptyFile() throws Exception {
+        Files.write(dir.resolve("tasks.json"), codec.write(List.of()));
+    }
+
+    @Test
+    void ownWritesAreNotOutsideChanges() {
+        JsonTaskStore store = new JsonTaskStore(codec, dir, new SimpleMeterRegistry());
+        long seq = store.changeSeq();
+        store.upsert(task("a"));
+
+        assertThat(store.changeSeq()).isGreaterThan(seq);
+        assertThat(store.outsideChangeSeq()).isZero();
+    }
+
+    @Test
+    void editToTheFileMovesBothSequences() throws Exception {
+        JsonTaskStore store = new JsonTaskStore(codec, dir, new SimpleMeterRegistry());
+        store.upsert(task("a"));
+        long seq = store.changeSeq(), outside = store.outsideChangeSeq();
+
+        Files.write(dir.resolve("tasks.json"), codec.write(List.of(task("a"), task("b"))));
+
+        assertThat(store.changeSeq()).isGreaterThan(seq);
+        assertThat(store.outsideChangeSeq()).isGreaterThan(outside);
+        // noticed once, not on every call
+        assertThat(store.outsideChangeSeq()).isEqualTo(store.outsideChangeSeq());
+    }
+
+    private static Task task(String id) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(1);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
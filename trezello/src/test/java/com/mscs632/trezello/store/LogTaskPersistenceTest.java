@@ -0,0 +1,141 @@
+package com.mscs632.trezello.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogTaskPersistenceTest {
+    private final ObjectMapper om = new ObjectMapper();
+    private final StorageCodec codec = new StorageCodec(StorageCodec.Format.JSON);
+
+    @TempDir Path dir;
+    private Path snapshot, wal;
+
+    @BeforeEach
+    void emptySnapshot() throws IOException {
+        snapshot = dir.resolve("tasks.json");
+        wal = dir.resolve("wal");
+        Files.writeString(snapshot, "[]");
+    }
+
+    @Test
+    void replaysLogOnTopOfSnapshot() {
+        try (LogTaskPersistence p = open()) {
+            assertThat(p.load()).isEmpty();
+            p.upserted(task("a", 1));
+            p.upserted(task("b", 1));
+            p.upserted(task("a", 2));
+            p.deleted("b");
+        }
+        try (LogTaskPersistence p = open()) {
+            assertThat(p.load()).containsExactly(task("a", 2));
+        }
+    }
+
+    @Test
+    void dropsTornRecordAtEndOfLog() throws IOException {
+        try (LogTaskPersistence p = open()) {
+            p.load();
+            p.upserted(task("a", 1));
+            p.upserted(task("b", 1));
+        }
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        Files.writeString(segment, "{\"op\":\"UPSERT\",\"task\":{\"id\":\"c\",\"ti", StandardOpenOption.APPEND);
+
+        try (LogTaskPersistence p = open()) {
+            assertThat(p.load()).containsExactly(task("a", 1), task("b", 1));
+            assertThat(Files.size(segment)).isEqualTo(intact);
+            // records appended after the repair start on a clean line
+            p.upserted(task("c", 1));
+        }
+        try (LogTaskPersistence p = open()) {
+            assertThat(p.load()).containsExactly(task("a", 1), task("b", 1), task("c", 1));
+        }
+    }
+
+    @Test
+    void compactionFoldsSealedSegmentsIntoSnapshot() throws IOException {
+        try (LogTaskPersistence p = open()) {
+            p.load();
+            p.upserted(task("a", 1));
+            p.upserted(task("b", 1));
+            p.compact(() -> List.of(task("a", 1), task("b", 1)));
+
+            assertThat(codec.readTasks(Files.readAllBytes(snapshot))).containsExactly(task("a", 1), task("b", 1));
+            List<Path> left = segments();
+            assertThat(left).hasSize(1);
+            assertThat(Files.size(left.get(0))).isZero();
+
+            // changes after the roll land in the new segment and survive a restart
+            p.deleted("a");
+            p.sync(List::of);
+        }
+        try (LogTaskPersistence p = open()) {
+            assertThat(p.load()).containsExactly(task("b", 1));
+        }
+    }
+
+    @Test
+    void compactionWithoutNewRecordsKeepsSnapshot() throws IOException {
+        try (LogTaskPersistence p = open()) {
+            p.load();
+            p.compact(() -> { throw new AssertionError("nothing to compact"); });
+            assertThat(Files.readString(snapshot, StandardCharsets.UTF_8)).isEqualTo("[]");
+        }
+    }
+
+    @Test
+    void offlineReadLeavesFilesAlone() throws IOException {
+        assertThat(LogTaskPersistence.read(om, codec, snapshot, wal)).isEmpty();
+        assertThat(wal).doesNotExist();
+
+        try (LogTaskPersistence p = open()) {
+            p.load();
+            p.upserted(task("a", 1));
+        }
+        Path segment = segments().get(0);
+        Files.writeString(segment, "{\"op\":\"DEL", StandardOpenOption.APPEND);
+        long torn = Files.size(segment);
+
+        assertThat(LogTaskPersistence.read(om, codec, snapshot, wal)).containsExactly(task("a", 1));
+        assertThat(Files.size(segment)).isEqualTo(torn);
+        assertThat(segments()).containsExactly(segment);
+    }
+
+    private LogTaskPersistence open() {
+        return new LogTaskPersistence(om, codec, snapshot, wal);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(wal)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Task task(String id, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId("u1");
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}
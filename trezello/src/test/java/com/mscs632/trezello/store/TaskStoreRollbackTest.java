@@ -0,0 +1,144 @@
+package com.mscs632.trezello.store;
+
+import com.mscs632.trezello.model.Task;
+import com.mscs632.trezello.model.TaskStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskStoreRollbackTest {
+    private final List<AutoCloseable> open = new ArrayList<>();
+    private final List<FailingSync> persistences = new ArrayList<>();
+
+    @TempDir Path dir;
+
+    @AfterEach
+    void close() throws Exception {
+        for (FailingSync p : persistences) p.failing = false;
+        for (AutoCloseable c : open.reversed()) c.close();
+    }
+
+    @Test
+    void batchThatThrowsLeavesNothingBehind() {
+        InMemoryTaskStore store = memory(new FailingSync());
+        store.upsert(task("a", "u1", 1));
+        long seq = store.changeSeq();
+
+        assertThatThrownBy(() -> store.batch(tx -> {
+            tx.upsert(task("b", "u1", 1));
+            tx.compareAndUpdate("a", 1, t -> { t.setAssigneeId("u2"); return t; });
+            tx.deleteById("a");
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        assertThat(store.findAll()).extracting(Task::getId).containsExactly("a");
+        assertThat(store.findById("a")).get().extracting(Task::getVersion, Task::getAssigneeId).containsExactly(1, "u1");
+        assertThat(store.find(new TaskQuery(null, null, "u1"))).extracting(Task::getId).containsExactly("a");
+        assertThat(store.find(new TaskQuery(null, null, "u2"))).isEmpty();
+        assertThat(store.changeSeq()).isGreaterThan(seq);
+    }
+
+    @Test
+    void failedSyncRollsTheBatchBack() {
+        FailingSync persistence = new FailingSync();
+        InMemoryTaskStore store = memory(persistence);
+        store.upsert(task("a", "u1", 1));
+        persistence.failing = true;
+
+        assertThatThrownBy(() -> store.batch(tx -> tx.deleteById("a"))).hasMessage("sync failed");
+
+        assertThat(store.findById("a")).isPresent();
+        // the rollback is reported to the persistence too, so the next sync writes it
+        assertThat(persistence.upserted).containsExactly("a", "a");
+    }
+
+    @Test
+    void failedSyncOfOneShardRollsBackEveryShard() {
+        FailingSync second = new FailingSync();
+        List<InMemoryTaskStore> shards = List.of(memory(new FailingSync()), memory(second));
+        ShardedTaskStore store = new ShardedTaskStore(shards);
+        Task a = task("a", "u1", 1);
+        store.upsert(a);
+        String other = otherShardAssignee(a.getAssigneeId(), shards.size());
+        second.failing = true;
+
+        assertThatThrownBy(() -> store.batch(tx -> {
+            tx.upsert(task("b", "u1", 1));
+            tx.upsert(task("c", other, 1));
+            return tx.compareAndUpdate("a", 1, t -> { t.setAssigneeId(other); return t; });
+        })).hasMessage("sync failed");
+
+        assertThat(store.findAll()).extracting(Task::getId).containsExactly("a");
+        assertThat(store.findById("a")).get().extracting(Task::getAssigneeId).isEqualTo("u1");
+        assertThat(store.find(new TaskQuery(null, null, other))).isEmpty();
+    }
+
+    @Test
+    void failedBatchKeepsTheArchivedCopyOfAThawedTask() throws Exception {
+        FailingSync persistence = new FailingSync();
+        InMemoryTaskStore hot = memory(persistence);
+        TieredTaskStore store = new TieredTaskStore(hot, new StorageCodec(StorageCodec.Format.JSON), dir,
+                new SimpleMeterRegistry(), 30, 3_600_000, 4);
+        open.add(store);
+        Task done = task("a", "u1", 1);
+        done.setStatus(TaskStatus.COMPLETED);
+        store.upsert(done);
+        assertThat(store.archive(Instant.parse("2030-01-01T00:00:00Z"))).isEqualTo(1);
+        persistence.failing = true;
+
+        assertThatThrownBy(() -> store.compareAndUpdate("a", 1, t -> { t.setTitle("changed"); return t; }))
+                .hasMessage("sync failed");
+
+        assertThat(hot.findById("a")).isEmpty();
+        assertThat(store.findById("a")).get().extracting(Task::getTitle).isEqualTo("task a");
+    }
+
+    private InMemoryTaskStore memory(FailingSync persistence) {
+        persistences.add(persistence);
+        InMemoryTaskStore store = new InMemoryTaskStore(persistence, InMemoryTaskStore.Durability.SYNC, 0, 0);
+        open.add(store);
+        return store;
+    }
+
+    private static String otherShardAssignee(String assigneeId, int shards) {
+        for (int i = 0; ; i++)
+            if (ShardedTaskStore.shardOf("u" + i, shards) != ShardedTaskStore.shardOf(assigneeId, shards)) return "u" + i;
+    }
+
+    /** Keeps nothing, records upserted ids, and fails every sync while {@code failing} is set. */
+    private static final class FailingSync implements TaskPersistence {
+        final List<String> upserted = new ArrayList<>();
+        volatile boolean failing;
+
+        @Override public List<Task> load() { return List.of(); }
+        @Override public void upserted(Task t) { upserted.add(t.getId()); }
+        @Override public void deleted(String id) {}
+        @Override public void sync(Supplier<List<Task>> contents) {
+            if (failing) throw new RuntimeException("sync failed");
+        }
+        @Override public void close() {}
+    }
+
+    private static Task task(String id, String assigneeId, int version) {
+        Task t = new Task();
+        t.setId(id);
+        t.setTitle("task " + id);
+        t.setCategory("work");
+        t.setAssigneeId(assigneeId);
+        t.setStatus(TaskStatus.PENDING);
+        t.setVersion(version);
+        t.setCreatedAt("2024-01-01T00:00:00Z");
+        t.setUpdatedAt("2024-01-01T00:00:00Z");
+        return t;
+    }
+}